@@ -1,21 +1,78 @@
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 
+/**
+ * The bag of tiles the players draw from, held as a count of each letter rather than as tiles.
+ *
+ * Tiles are drawn at random, weighted by how many of each letter are left, from a SplittableRandom that is
+ * seeded once for the bag and advanced once per draw, so a bag's draws depend only on its seed. Setting the
+ * "scrabble.seed" system property gives every new bag that seed, which makes whole games reproducible.
+ * A bag may also hold tiles in a fixed order, which are drawn before the rest: a bag read back from a save
+ * holds all its tiles this way, in the order the saved bag would have drawn them.
+ * Copying a bag copies a few small arrays, and the count of any letter left is a single array load;
+ * a random draw walks the letter counts to the one picked, at most 27 steps.
+ */
 public class Bag implements Serializable {
-    private List<Tile> tiles;
+    private static final int LETTERS = TileSet.BLANK + 1;
+
+    private final int[] counts; // Every tile left, by letter
+    private final int[] pool; // The tiles left to draw at random, by letter
+    private int poolSize;
+    private byte[] order; // The tiles drawn before the pool, the next drawn last
+    private int orderSize;
+    private final long seed;
+    private int draws; // The number of tiles drawn from the pool
+    private transient SplittableRandom random;
+    private transient int randomDraws; // The number of draws random has been advanced by
 
     /**
      * Default constructor.
-     * Initializes the bag with a standard set of tiles and shuffles them.
+     * Initializes the bag with the default tile set, drawn in the order of the "scrabble.seed" property,
+     * or of a random seed if it is not set.
      */
 
     public Bag() {
-        tiles = new ArrayList<>();
-        this.initializeTiles();
-        Collections.shuffle(tiles);
+        this(TileSet.getDefault());
+    }
+
+    /**
+     * Constructor for a full Bag of a tile set, drawn in the order of the "scrabble.seed" property,
+     * or of a random seed if it is not set.
+     *
+     * @param tileSet the tile set of the game.
+     */
+    public Bag(TileSet tileSet) {
+        this(tileSet, Long.getLong("scrabble.seed", new SplittableRandom().nextLong()));
+    }
+
+    /**
+     * Constructor for a Bag of the default tile set whose draws are fixed by a seed.
+     *
+     * @param seed the seed of the draws.
+     */
+    public Bag(long seed) {
+        this(TileSet.getDefault(), seed);
+    }
+
+    /**
+     * Constructor for a full Bag of a tile set whose draws are fixed by a seed.
+     *
+     * @param tileSet the tile set of the game.
+     * @param seed the seed of the draws.
+     */
+    public Bag(TileSet tileSet, long seed) {
+        this.seed = seed;
+        this.counts = new int[LETTERS];
+        this.pool = new int[LETTERS];
+        this.order = new byte[0];
+        for (int i = 0; i < LETTERS; i++) {
+            pool[i] = tileSet.getCount(i);
+            counts[i] = pool[i];
+            poolSize += pool[i];
+        }
     }
     /**
      * Alternate constructor.
@@ -25,78 +82,128 @@ public class Bag implements Serializable {
      */
 
     public Bag(int a){
-        tiles = new ArrayList<>();
+        this(List.of());
         this.initializeTiles();
-        tiles.add(new Tile('h'));
-        tiles.add(new Tile('e'));
-        tiles.add(new Tile('l'));
-        tiles.add(new Tile('l'));
-        tiles.add(new Tile('o'));
-        tiles.add(new Tile('b'));
-        tiles.add(new Tile('t'));
+        for (char letter : new char[]{'h', 'e', 'l', 'l', 'o', 'b', 't'}) {
+            push(Lexicon.letterIndex(letter));
+        }
     }
 
     /**
-     * Initializes the bag with the standard distribution of Scrabble tiles.
+     * Constructor for a Bag read back from a save.
+     *
+     * @param tiles the tiles left in the bag, the next tile drawn last.
      */
-    private void initializeTiles() {
-        this.addTiles('a', 9);
-        this.addTiles('b', 2);
-        this.addTiles('c', 2);
-        this.addTiles('d', 4);
-        this.addTiles('e', 12);
-        this.addTiles('f', 2);
-        this.addTiles('g', 3);
-        this.addTiles('h', 2);
-        this.addTiles('i', 9);
-        this.addTiles('j', 1);
-        this.addTiles('k', 1);
-        this.addTiles('l', 4);
-        this.addTiles('m', 2);
-        this.addTiles('n', 6);
-        this.addTiles('o', 8);
-        this.addTiles('p', 2);
-        this.addTiles('q', 1);
-        this.addTiles('r', 6);
-        this.addTiles('s', 4);
-        this.addTiles('t', 6);
-        this.addTiles('u', 4);
-        this.addTiles('v', 2);
-        this.addTiles('w', 2);
-        this.addTiles('x', 1);
-        this.addTiles('y', 2);
-        this.addTiles('z', 1);
-        this.addTiles(' ', 2);
+    Bag(List<Tile> tiles) {
+        this.seed = 0;
+        this.counts = new int[LETTERS];
+        this.pool = new int[LETTERS];
+        this.order = new byte[Math.max(tiles.size(), 8)];
+        for (Tile tile : tiles) {
+            returnTile(tile);
+        }
     }
 
     /**
-     * Adds a specified number of tiles of a given letter to the bag.
+     * Copy constructor, for simulating draws without changing the bag.
      *
-     * @param letter the letter to add.
-     * @param count  the number of tiles to add for the letter.
+     * @param other the bag to copy.
      */
+    public Bag(Bag other) {
+        this.counts = other.counts.clone();
+        this.pool = other.pool.clone();
+        this.poolSize = other.poolSize;
+        this.order = other.order.clone();
+        this.orderSize = other.orderSize;
+        this.seed = other.seed;
+        this.draws = other.draws;
+    }
 
-    private void addTiles(char letter, int count) {
-        for(int i = 0; i < count; ++i) {
-            tiles.add(new Tile(letter));
+    /**
+     * Puts the tile distribution of the default tile set in the bag in a fixed order,
+     * letters in alphabetical order followed by the blanks.
+     */
+    private void initializeTiles() {
+        TileSet tileSet = TileSet.getDefault();
+        for (int i = 0; i < LETTERS; i++) {
+            for (int j = 0; j < tileSet.getCount(i); j++) {
+                push(i);
+            }
         }
-
     }
 
     /**
-     * Draws a tile from the bag.
-     * Removes and returns the last tile in the bag.
+     * Draws a tile from the bag: the next tile in the fixed order if there is one, otherwise a random tile.
      *
      * @return the drawn tile.
      * @throws IllegalStateException if the bag is empty.
      */
 
     public Tile drawTile() {
-        if (tiles.isEmpty()) {
+        int letter = draw();
+        return new Tile(letter == TileSet.BLANK ? ' ' : (char) ('a' + letter));
+    }
+
+    private int draw() {
+        int letter;
+        if (orderSize > 0) {
+            letter = order[--orderSize];
+        } else if (poolSize > 0) {
+            if (random == null || randomDraws != draws) {
+                // Undo has put tiles back since the last draw; replay the draws that are still made
+                random = new SplittableRandom(seed);
+                for (randomDraws = 0; randomDraws < draws; randomDraws++) {
+                    random.nextLong();
+                }
+            }
+            // One value per draw, so the draws can be replayed. Scaling 31 random bits to the pool avoids the
+            // worst of modulo bias but not all of it: with at most 100 tiles left, no tile is more than
+            // 100 / 2^31 (about 5 in 100 million) likelier than another, far below anything a game can show.
+            // Rejecting values to remove it would take a varying number of values per draw.
+            long pick = ((random.nextLong() >>> 33) * poolSize) >>> 31;
+            randomDraws++;
+            draws++;
+            letter = 0;
+            for (int left = (int) pick; left >= pool[letter]; letter++) { // A scan of at most 27 letters
+                left -= pool[letter];
+            }
+            pool[letter]--;
+            poolSize--;
+        } else {
             throw new IllegalStateException("No tiles left in the bag");
+        }
+        counts[letter]--;
+        return letter;
+    }
+
+    /**
+     * Puts the last tile drawn back in the bag, so it is the next tile drawn.
+     * Returning tiles in the reverse of the order they were drawn restores the bag.
+     *
+     * @param tile the tile to put back.
+     */
+    public void returnTile(Tile tile) {
+        int letter = tile.isBlank() ? TileSet.BLANK : Lexicon.letterIndex(tile.getTileChar());
+        if (letter < 0) {
+            throw new IllegalArgumentException("That is not a valid tile");
+        }
+        if (draws > 0) {
+            // Tiles in the fixed order are all drawn before the pool, so the last draw was from the pool
+            pool[letter]++;
+            poolSize++;
+            draws--;
+            counts[letter]++;
         } else {
-            return (Tile)tiles.removeLast();
+            push(letter);
+        }
+    }
+
+    private void push(int letter) {
+        if (orderSize == order.length) {
+            order = Arrays.copyOf(order, Math.max(8, orderSize * 2));
         }
+        order[orderSize++] = (byte) letter;
+        counts[letter]++;
     }
 
     /**
@@ -106,19 +213,59 @@ public class Bag implements Serializable {
      */
 
     public int getTileCount() {
-        return tiles.size();
+        return orderSize + poolSize;
+    }
+
+    /**
+     * Gets the number of tiles of a letter left in the bag.
+     *
+     * @param letter the letter index from 0 to 25, or 26 for blanks.
+     * @return the number of tiles.
+     */
+    public int getCount(int letter) {
+        return counts[letter];
+    }
+
+    /**
+     * Counts the tiles left in the bag by letter, with blanks counted at index 26.
+     *
+     * @return a new array of the count of each letter.
+     */
+    public int[] getLetterCounts() {
+        return counts.clone();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Lists the tiles left in the bag in the order they will be drawn, last first.
+     *
+     * @return the letter index of each tile, with blanks as 26, the next tile drawn last.
+     */
+    byte[] getDrawOrder() {
+        Bag copy = new Bag(this);
+        byte[] drawOrder = new byte[getTileCount()];
+        for (int i = drawOrder.length - 1; i >= 0; i--) {
+            drawOrder[i] = (byte) copy.draw();
+        }
+        return drawOrder;
     }
 
     /**
      * Checks if the bag contains all the characters of a given word.
      *
-     * @param word the word to check.
+     * @param word the word to check, with ' ' for a blank.
      * @return true if all characters in the word are present in the bag; false otherwise.
      */
 
     public boolean ItContains(String word) {
+        int[] needed = new int[LETTERS];
         for(int i = 0; i < word.length(); ++i) {
-            if (!tiles.contains(word.charAt(i))) {
+            char letter = word.charAt(i);
+            int index = letter == ' ' ? TileSet.BLANK : Lexicon.letterIndex(letter);
+            if (index < 0 || ++needed[index] > counts[index]) {
                 return false;
             }
         }
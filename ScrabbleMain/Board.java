@@ -4,21 +4,143 @@ import java.util.ArrayList;
 import org.w3c.dom.*;
 import javax.xml.parsers.*;
 import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Board implements Serializable {
-    private Tile[][] board;
-    private String[][] multipliers;
+    static final int ALL_LETTERS = (1 << 26) - 1;
+    private static final int LETTER_MASK = 0x1F;
+    private static final int BLANK_FLAG = 0x20;
+    private static final ConcurrentHashMap<String, byte[]> LAYOUTS = new ConcurrentHashMap<>();
+
+    // Squares are indexed x * 15 + y. A letter is stored as 1 to 26 for 'a' to 'z', with BLANK_FLAG set for
+    // a blank, and 0 for an empty square; premiums are stored as Premium ordinals.
+    private byte[] letters;
+    private byte[] premiums;
+    private String layoutId;
+    private String tileSetId; // The tile set the letters on the board are scored by
+    private transient TileSet tileSet;
+    private int tileCount;
+
+    // Occupancy bitmasks, one bit per square: bit x of rowMasks[y], and bit y of columnMasks[x]
+    private short[] rowMasks;
+    private short[] columnMasks;
+
+    // The Tile objects for the placed letters, built on demand after the board is copied or read back
+    private transient Tile[] tiles;
+
+    // Move generation structures, indexed x * 15 + y and kept up to date as tiles are added and removed.
+    // Cross-checks are indexed by direction (0 for 'R', 1 for 'D') and only recomputed when dirty.
+    private boolean[] anchors;
+    private int[][] crossChecks;
+    private int[][] crossScores;
+    private boolean[][] crossDirty;
+    private transient Lexicon crossCheckLexicon;
 
     /**
      * Constructor for the Board class.
-     * Initializes a 15x15 board with all positions set to null (empty).
+     * Initializes a 15x15 board with all positions set to null (empty), scored by the default tile set.
      */
     public Board() {
-        multipliers = new String[15][15]; 
-        board = new Tile[15][15];  // Initialize an empty 15x15 board
+        this(TileSet.getDefault());
+    }
+
+    /**
+     * Constructor for an empty Board scored by a tile set.
+     *
+     * @param tileSet the tile set of the game played on the board
+     */
+    public Board(TileSet tileSet) {
+        this.tileSet = tileSet;
+        tileSetId = tileSet.getId();
+        letters = new byte[225];  // Initialize an empty 15x15 board
+        premiums = new byte[225];
+        tiles = new Tile[225];
+        rowMasks = new short[15];
+        columnMasks = new short[15];
+        anchors = new boolean[225];
+        crossChecks = new int[2][225];
+        crossScores = new int[2][225];
+        crossDirty = new boolean[2][225];
         setMultiplier("defaultLayout.xml");
     }
-    public Tile[][] getBoard(){return board;}
+
+    /**
+     * Copy constructor for the Board class.
+     * The premium layout, which is never changed in place, is shared with the original; the letters and
+     * move generation structures are copied, so the copy can be played on independently.
+     *
+     * @param other the board to copy
+     */
+    public Board(Board other) {
+        premiums = other.premiums;
+        layoutId = other.layoutId;
+        tileSetId = other.tileSetId;
+        tileSet = other.tileSet;
+        letters = other.letters.clone();
+        tiles = other.tiles == null ? null : other.tiles.clone();
+        tileCount = other.tileCount;
+        rowMasks = other.rowMasks.clone();
+        columnMasks = other.columnMasks.clone();
+        anchors = other.anchors.clone();
+        crossChecks = new int[][] {other.crossChecks[0].clone(), other.crossChecks[1].clone()};
+        crossScores = new int[][] {other.crossScores[0].clone(), other.crossScores[1].clone()};
+        crossDirty = new boolean[][] {other.crossDirty[0].clone(), other.crossDirty[1].clone()};
+        crossCheckLexicon = other.crossCheckLexicon;
+    }
+
+    /**
+     * Builds a board from the squares of a game state.
+     * The premium layout is shared with the state; cross-checks are computed when first needed.
+     *
+     * @param tileSet the tile set of the game played on the board
+     * @param layoutId the name of the layout file the premiums were read from
+     * @param premiums the premium grid, as Premium ordinals indexed x * 15 + y
+     * @param columns the letter codes of each column, indexed [x][y], as returned by getCode
+     */
+    Board(TileSet tileSet, String layoutId, byte[] premiums, byte[][] columns) {
+        this.tileSet = tileSet;
+        this.tileSetId = tileSet.getId();
+        this.layoutId = layoutId;
+        this.premiums = premiums;
+        letters = new byte[225];
+        rowMasks = new short[15];
+        columnMasks = new short[15];
+        anchors = new boolean[225];
+        crossChecks = new int[2][225];
+        crossScores = new int[2][225];
+        crossDirty = new boolean[2][225];
+        for (int x = 0; x < 15; x++) {
+            System.arraycopy(columns[x], 0, letters, x * 15, 15);
+            for (int y = 0; y < 15; y++) {
+                if (letters[x * 15 + y] != 0) {
+                    rowMasks[y] |= (short) (1 << x);
+                    columnMasks[x] |= (short) (1 << y);
+                    tileCount++;
+                }
+            }
+        }
+        for (int x = 0; x < 15; x++) {
+            for (int y = 0; y < 15; y++) {
+                updateAnchor(x, y);
+            }
+        }
+    }
+
+    /**
+     * Returns the placed tiles as a grid, indexed [x][y], with null for empty squares.
+     *
+     * @return a new grid of the board's tiles
+     */
+    public Tile[][] getBoard() {
+        Tile[][] grid = new Tile[15][15];
+        for (int x = 0; x < 15; x++) {
+            for (int y = 0; y < 15; y++) {
+                grid[x][y] = getTile(x, y);
+            }
+        }
+        return grid;
+    }
     /**
      * Adds a tile to the board at the specified coordinates.
      *
@@ -31,12 +153,23 @@ public class Board implements Serializable {
         // Check if the coordinates are within the valid range (0-14 for x, 0-14 for y)
         if (x <= 14 && x >= 0 && y <= 14 && y >= 0) {
             // Check if the specified board position is empty
-            if (board[x][y] == null) {
-                board[x][y] = tile;  // Place the tile on the board
+            int cell = x * 15 + y;
+            if (letters[cell] == 0) {
+                int letter = Lexicon.letterIndex(tile.getTileChar());
+                if (letter < 0) {
+                    throw new IllegalArgumentException("A tile must have a letter to be placed: " + tile.getTileChar());
+                }
+                // Place the tile on the board
+                letters[cell] = code(letter, tile.isBlank());
+                tileCache()[cell] = tile;
+                rowMasks[y] |= (short) (1 << x);
+                columnMasks[x] |= (short) (1 << y);
+                tileCount++;
+                updateAround(x, y);
             } else {
                 // Throw an exception if the tile position is already occupied
                 throw new IllegalArgumentException(
-                        "Tile at " + x + ", " + y + " is already taken with a " + board[x][y].getTileChar());
+                        "Tile at " + x + ", " + y + " is already taken with a " + getLetter(x, y));
             }
         } else {
             // Throw an exception if the coordinates are out of range
@@ -44,6 +177,262 @@ public class Board implements Serializable {
         }
     }
 
+    /**
+     * Removes a tile from the board, undoing addLetter.
+     *
+     * @param x the x-coordinate of the tile to remove
+     * @param y the y-coordinate of the tile to remove
+     * @return the removed Tile object
+     * @throws IllegalArgumentException if the position is out of bounds or empty
+     */
+    public Tile removeLetter(int x, int y) {
+        if (isEmpty(x, y)) {
+            throw new IllegalArgumentException("There is no tile at " + x + ", " + y);
+        }
+        Tile tile = getTile(x, y);
+        letters[x * 15 + y] = 0;
+        tiles[x * 15 + y] = null;
+        rowMasks[y] &= (short) ~(1 << x);
+        columnMasks[x] &= (short) ~(1 << y);
+        tileCount--;
+        updateAround(x, y);
+        return tile;
+    }
+
+    /**
+     * Updates the anchors and marks the cross-checks affected by a change at one square.
+     * Only the square, its neighbours, and the first empty square past each end of the
+     * row and column runs through it can change.
+     */
+    private void updateAround(int x, int y) {
+        updateAnchor(x, y);
+        updateAnchor(x - 1, y);
+        updateAnchor(x + 1, y);
+        updateAnchor(x, y - 1);
+        updateAnchor(x, y + 1);
+
+        crossDirty[0][x * 15 + y] = true;
+        crossDirty[1][x * 15 + y] = true;
+        markRunEnd(x, y, 0, -1, 0); // Words along a row ('R') are crossed by the column
+        markRunEnd(x, y, 0, 1, 0);
+        markRunEnd(x, y, -1, 0, 1); // Words along a column ('D') are crossed by the row
+        markRunEnd(x, y, 1, 0, 1);
+    }
+
+    private void updateAnchor(int x, int y) {
+        if (x <= 14 && x >= 0 && y <= 14 && y >= 0) {
+            anchors[x * 15 + y] = letters[x * 15 + y] == 0 && touches(x, y);
+        }
+    }
+
+    private void markRunEnd(int x, int y, int dx, int dy, int dir) {
+        do {
+            x += dx;
+            y += dy;
+        } while (!isEmpty(x, y));
+        if (x <= 14 && x >= 0 && y <= 14 && y >= 0) {
+            crossDirty[dir][x * 15 + y] = true;
+        }
+    }
+
+    /**
+     * Returns the occupancy of one line of the board.
+     *
+     * @param direction the direction of the line ('R' for a row, 'D' for a column)
+     * @param line the y-coordinate of a row, or the x-coordinate of a column
+     * @return a mask with bit i set if the i-th square along the line holds a tile
+     */
+    public int getLineMask(char direction, int line) {
+        return direction == 'D' ? columnMasks[line] : rowMasks[line];
+    }
+
+    /**
+     * Checks if any of the four squares next to a position holds a tile.
+     *
+     * @param x the x-coordinate of the position
+     * @param y the y-coordinate of the position
+     * @return true if a neighbouring square is occupied
+     */
+    public boolean touches(int x, int y) {
+        return hasNeighbour('R', x, y) || hasNeighbour('D', x, y);
+    }
+
+    /**
+     * Checks if the square before or after a position along a direction holds a tile.
+     *
+     * @param direction the direction to look along ('D' for down, 'R' for right)
+     * @param x the x-coordinate of the position
+     * @param y the y-coordinate of the position
+     * @return true if a neighbouring square along the direction is occupied
+     */
+    public boolean hasNeighbour(char direction, int x, int y) {
+        if (x > 14 || x < 0 || y > 14 || y < 0) {
+            return false;
+        }
+        int position = direction == 'D' ? y : x;
+        int mask = getLineMask(direction, direction == 'D' ? x : y);
+        return (mask & ((1 << position) << 1 | (1 << position) >> 1)) != 0;
+    }
+
+    /**
+     * Returns the first position of the run of set bits through a position in a line mask.
+     *
+     * @param mask the line mask, with the bit at position set
+     * @param position the position within the run
+     * @return the position of the run's first bit
+     */
+    static int runStart(int mask, int position) {
+        int gaps = ~mask & ((1 << position) - 1);
+        return gaps == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(gaps);
+    }
+
+    /**
+     * Returns the last position of the run of set bits through a position in a line mask.
+     *
+     * @param mask the line mask, with the bit at position set
+     * @param position the position within the run
+     * @return the position of the run's last bit
+     */
+    static int runEnd(int mask, int position) {
+        return position + Integer.numberOfTrailingZeros(~(mask >>> position)) - 1;
+    }
+
+    /**
+     * Returns a line mask with the bits from start to end set.
+     *
+     * @param start the first position
+     * @param end the last position
+     * @return the mask
+     */
+    static int span(int start, int end) {
+        return (1 << (end + 1)) - (1 << start);
+    }
+
+    /**
+     * Returns the number of tiles on the board.
+     *
+     * @return the tile count
+     */
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Checks if an empty square is an anchor, i.e. next to a placed tile, so a new word may be built through it.
+     * On an empty board there are no anchors; the first move goes through the center instead.
+     *
+     * @param x the x-coordinate to check
+     * @param y the y-coordinate to check
+     * @return true if the square is an anchor
+     */
+    public boolean isAnchor(int x, int y) {
+        return x <= 14 && x >= 0 && y <= 14 && y >= 0 && anchors[x * 15 + y];
+    }
+
+    /**
+     * Returns the letters that may be placed on an empty square in a move along the given direction,
+     * without forming an invalid word across it. One bit per letter, 'a' is bit 0.
+     *
+     * @param lexicon the lexicon cross-words must be in
+     * @param direction the direction of the move ('D' for down, 'R' for right)
+     * @param x the x-coordinate of the square
+     * @param y the y-coordinate of the square
+     * @return the allowed letter mask, with every letter allowed if no cross-word is formed
+     */
+    public int getCrossCheck(Lexicon lexicon, char direction, int x, int y) {
+        int dir = direction == 'D' ? 1 : 0;
+        refreshCrossCheck(lexicon, dir, x * 15 + y);
+        return crossChecks[dir][x * 15 + y];
+    }
+
+    /**
+     * Returns the score of the tiles already in the word crossing an empty square, for a move along the given direction.
+     *
+     * @param lexicon the lexicon cross-words must be in
+     * @param direction the direction of the move ('D' for down, 'R' for right)
+     * @param x the x-coordinate of the square
+     * @param y the y-coordinate of the square
+     * @return the score of the crossing tiles, or -1 if no cross-word is formed
+     */
+    public int getCrossScore(Lexicon lexicon, char direction, int x, int y) {
+        int dir = direction == 'D' ? 1 : 0;
+        refreshCrossCheck(lexicon, dir, x * 15 + y);
+        return crossScores[dir][x * 15 + y];
+    }
+
+    /**
+     * Recomputes every dirty cross-check, so that later reads do not write to the board.
+     * Call before sharing the board between threads.
+     *
+     * @param lexicon the lexicon cross-words must be in
+     */
+    public void refreshCrossChecks(Lexicon lexicon) {
+        for (int dir = 0; dir < 2; dir++) {
+            for (int cell = 0; cell < 225; cell++) {
+                refreshCrossCheck(lexicon, dir, cell);
+            }
+        }
+    }
+
+    private void refreshCrossCheck(Lexicon lexicon, int dir, int cell) {
+        if (lexicon != crossCheckLexicon) {
+            // First use, a different lexicon, or a board read back from a save: recompute everything
+            for (boolean[] dirty : crossDirty) {
+                Arrays.fill(dirty, true);
+            }
+            crossCheckLexicon = lexicon;
+        }
+        if (!crossDirty[dir][cell]) {
+            return;
+        }
+        crossDirty[dir][cell] = false;
+        int x = cell / 15;
+        int y = cell % 15;
+        int dx = dir == 0 ? 0 : 1;
+        int dy = dir == 0 ? 1 : 0;
+        if (letters[cell] != 0 || (isEmpty(x - dx, y - dy) && isEmpty(x + dx, y + dy))) {
+            crossChecks[dir][cell] = ALL_LETTERS;
+            crossScores[dir][cell] = -1;
+            return;
+        }
+
+        // Walk the tiles before the square, then try each letter that continues them against the tiles after it
+        int xIndex = x;
+        int yIndex = y;
+        while (!isEmpty(xIndex - dx, yIndex - dy)) {
+            xIndex -= dx;
+            yIndex -= dy;
+        }
+        int score = 0;
+        int node = lexicon.root();
+        for (; xIndex != x || yIndex != y; xIndex += dx, yIndex += dy) {
+            score += getTileScore(xIndex, yIndex);
+            if (node != Lexicon.NONE) {
+                node = lexicon.child(node, getLetter(xIndex, yIndex));
+            }
+        }
+        for (xIndex = x + dx, yIndex = y + dy; !isEmpty(xIndex, yIndex); xIndex += dx, yIndex += dy) {
+            score += getTileScore(xIndex, yIndex);
+        }
+
+        int mask = 0;
+        if (node != Lexicon.NONE) {
+            for (int letters = lexicon.childMask(node); letters != 0; letters &= letters - 1) {
+                char letter = (char) ('a' + Integer.numberOfTrailingZeros(letters));
+                int next = lexicon.child(node, letter);
+                for (xIndex = x + dx, yIndex = y + dy; next != Lexicon.NONE && !isEmpty(xIndex, yIndex);
+                     xIndex += dx, yIndex += dy) {
+                    next = lexicon.child(next, getLetter(xIndex, yIndex));
+                }
+                if (next != Lexicon.NONE && lexicon.isTerminal(next)) {
+                    mask |= 1 << (letter - 'a');
+                }
+            }
+        }
+        crossChecks[dir][cell] = mask;
+        crossScores[dir][cell] = score;
+    }
+
     /**
      * Retrieves the tile at the specified coordinates on the board.
      *
@@ -53,12 +442,123 @@ public class Board implements Serializable {
      */
     public Tile getTile(int x, int y) {
         if (x <= 14 && x >= 0 && y <= 14 && y >= 0) {
-            return board[x][y];  // Return the tile at the given position
+            int cell = x * 15 + y;
+            if (letters[cell] == 0) {
+                return null;
+            }
+            Tile[] cache = tileCache();
+            if (cache[cell] == null) {
+                // Rebuild the tile from its letter
+                Tile tile = new Tile(isBlank(x, y) ? ' ' : getLetter(x, y));
+                tile.setTileChar(getLetter(x, y));
+                cache[cell] = tile;
+            }
+            return cache[cell];  // Return the tile at the given position
         }
         else {return null;}
 
     }
 
+    private Tile[] tileCache() {
+        if (tiles == null) {
+            tiles = new Tile[225];
+        }
+        return tiles;
+    }
+
+    /**
+     * Retrieves the letter at the specified coordinates without building a Tile.
+     *
+     * @param x the x-coordinate of the square
+     * @param y the y-coordinate of the square
+     * @return the lowercase letter, or 0 if the square is empty or out of bounds
+     */
+    public char getLetter(int x, int y) {
+        if (isEmpty(x, y)) {
+            return 0;
+        }
+        return (char) ('a' + (letters[x * 15 + y] & LETTER_MASK) - 1);
+    }
+
+    /**
+     * Returns the code a square's letter is stored as: 1 to 26 for 'a' to 'z', marked if it is a blank,
+     * or 0 for an empty square.
+     *
+     * @param x the x-coordinate of the square
+     * @param y the y-coordinate of the square
+     * @return the letter code
+     */
+    byte getCode(int x, int y) {
+        return letters[x * 15 + y];
+    }
+
+    /**
+     * Returns the code a letter is stored as on the board.
+     *
+     * @param letter the letter index, from 0 to 25
+     * @param blank true if the letter is played with a blank
+     * @return the letter code
+     */
+    static byte code(int letter, boolean blank) {
+        return (byte) ((letter + 1) | (blank ? BLANK_FLAG : 0));
+    }
+
+    /**
+     * Returns the letter index of a letter code.
+     *
+     * @param code a non-zero letter code
+     * @return the letter index, from 0 to 25
+     */
+    static int letterOf(byte code) {
+        return (code & LETTER_MASK) - 1;
+    }
+
+    /**
+     * Returns the premium grid, which is replaced rather than changed, so it can be shared.
+     *
+     * @return the premiums as Premium ordinals, indexed x * 15 + y
+     */
+    byte[] getPremiumGrid() {
+        return premiums;
+    }
+
+    /**
+     * Checks if the tile at the specified coordinates is a blank.
+     *
+     * @param x the x-coordinate of the square
+     * @param y the y-coordinate of the square
+     * @return true if a blank is placed there
+     */
+    public boolean isBlank(int x, int y) {
+        return !isEmpty(x, y) && (letters[x * 15 + y] & BLANK_FLAG) != 0;
+    }
+
+    /**
+     * Returns the score of the tile at the specified coordinates, without premiums.
+     *
+     * @param x the x-coordinate of the square
+     * @param y the y-coordinate of the square
+     * @return the tile's score in the board's tile set, that of a blank for a blank, or 0 for an empty square
+     */
+    public int getTileScore(int x, int y) {
+        if (isEmpty(x, y)) {
+            return 0;
+        }
+        return getTileSet().getScore(isBlank(x, y) ? TileSet.BLANK : (letters[x * 15 + y] & LETTER_MASK) - 1);
+    }
+
+    /**
+     * Returns the tile set the tiles on the board are scored by, which is that of the game.
+     *
+     * @return the shared tile set
+     */
+    public TileSet getTileSet() {
+        if (tileSet == null) {
+            tileSet = TileSet.get(tileSetId); // Not written when the board is serialized
+        }
+        return tileSet;
+    }
+
     /**
      * Checks if the position at the specified coordinates is empty.
      *
@@ -68,7 +568,7 @@ public class Board implements Serializable {
      */
     public boolean isEmpty(int x, int y) {
         if (x <= 14 && x >= 0 && y <= 14 && y >= 0) {
-            return board[x][y] == null;  // Return true if the position is empty
+            return letters[x * 15 + y] == 0;  // Return true if the position is empty
         }
         else {return true;}
     }
@@ -76,8 +576,23 @@ public class Board implements Serializable {
     /**
      * Sets up the multipliers for the Scrabble board, initializing positions for Double Letter (DL),
      * Triple Letter (TL), Double Word (DW), and Triple Word (TW) tiles.
+     * Each layout file is read once; boards with the same layout share its premium grid.
      */
     public void setMultiplier(String fileName){
+        byte[] layout = LAYOUTS.computeIfAbsent(fileName, Board::readLayout);
+        if (layout != null) {
+            premiums = layout;
+            layoutId = fileName;
+        }
+    }
+
+    /**
+     * Reads a layout file into a premium grid.
+     *
+     * @param fileName the name of the file in 'src/boardLayouts'
+     * @return the premium grid, or null if the file cannot be read
+     */
+    private static byte[] readLayout(String fileName) {
         try {
             File file = new File("src/boardLayouts/" + fileName);
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
@@ -88,7 +603,7 @@ public class Board implements Serializable {
 
             NodeList types = doc.getElementsByTagName("type");
 
-            multipliers = new String[15][15];
+            byte[] layout = new byte[225];
 
             for (int i = 0; i < types.getLength(); i++) {
                 Element typeElement = (Element) types.item(i);
@@ -99,30 +614,53 @@ public class Board implements Serializable {
                     Element position = (Element) positions.item(j);
                     int row = Integer.parseInt(position.getAttribute("row"));
                     int col = Integer.parseInt(position.getAttribute("col"));
-                    multipliers[row][col] = typeName;
+                    layout[row * 15 + col] = (byte) Premium.fromName(typeName).ordinal();
                 }
             }
+            return layout;
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
     }
 
     /**
-     * Returns the multiplier for a given board position, or "normal" if the position is empty or out of bounds.
+     * Returns the name of the layout file the premiums were read from, such as "defaultLayout.xml".
+     *
+     * @return the layout name
+     */
+    public String getLayoutId() {
+        return layoutId;
+    }
+
+    /**
+     * Returns the premium of a board position, or NORMAL if it has none or is out of bounds.
      *
      * @param x the x-coordinate of the board position.
      * @param y the y-coordinate of the board position.
-     * @return the multiplier at the specified position, or "normal" if none exists.
+     * @return the premium at the specified position.
      */
-    public String getMultiplier(int x, int y){
+    public Premium getPremium(int x, int y) {
         if (x <= 14 && x >= 0 && y <= 14 && y >= 0) {
-            String multiplier = multipliers[x][y]; // Get the multiplier at the given position
-            if (multiplier == null) {
-                // If no multiplier exists, it's a regular tile
-                return "normal";
-            }
-            return multiplier;
+            return Premium.of(premiums[x * 15 + y]);
         }
-        else {return "normal";}
+        else {return Premium.NORMAL;}
+    }
+
+    /**
+     * Checks if another board has the same letters, blanks and premiums.
+     *
+     * @param o the object to compare with
+     * @return true if the boards hold the same position
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Board other && Arrays.equals(letters, other.letters)
+                && Arrays.equals(premiums, other.premiums);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(letters) + Arrays.hashCode(premiums);
     }
 }
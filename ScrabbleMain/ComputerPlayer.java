@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A computer opponent that takes its turns through ScrabbleModel.playComputerTurn.
+ * Move choice is an anytime search bounded by a strict per-move time budget:
+ * the highest scoring move is available as soon as moves are generated,
+ * and is replaced by better candidates for as long as time remains.
+ */
+public class ComputerPlayer extends Player {
+    /** Number of top scoring moves considered after generation. */
+    static final int CANDIDATES = 40;
+    /** Number of best candidates by equity that are compared by simulation while the bag has tiles. */
+    static final int SIMULATED = 8;
+    /** Number of replies played out after each simulated candidate. */
+    static final int SIMULATION_PLIES = 2;
+
+    // One simulator for each lexicon in use, never shut down, as other games may be simulating on it
+    private static final ConcurrentHashMap<Lexicon, MonteCarloSimulator> simulators = new ConcurrentHashMap<>();
+    // Each thread solves with its own solver, so games on other threads are not held up
+    private static final ThreadLocal<EndgameSolver> endgameSolvers = new ThreadLocal<>();
+
+    // Rough value of keeping each tile for the next turn, 'a' to 'z' then the blank
+    private static final int[] LEAVE_VALUES = {
+            1, -2, 0, 0, 2, -2, -2, 1, 0, -3, -1, 0, 0, 0, -1, -1, -7, 1, 8, 0, -3, -5, -4, 3, -1, 5, 25
+    };
+
+    private final long moveBudgetMillis;
+
+    /**
+     * Constructor for the ComputerPlayer class.
+     *
+     * @param name the name of the player
+     * @param bag the bag of tiles for the game
+     * @param moveBudgetMillis the most time, in milliseconds, the player may spend choosing a move
+     */
+    public ComputerPlayer(String name, Bag bag, long moveBudgetMillis) {
+        super(name, bag);
+        this.moveBudgetMillis = moveBudgetMillis;
+    }
+
+    /**
+     * Constructor for a ComputerPlayer read back from a save, which keeps the hand and score it was saved with.
+     *
+     * @param name the name of the player
+     * @param bag the bag of tiles for the game
+     * @param moveBudgetMillis the most time, in milliseconds, the player may spend choosing a move
+     * @param hand the tiles in the player's hand, in order
+     * @param score the player's score
+     */
+    ComputerPlayer(String name, Bag bag, long moveBudgetMillis, List<Tile> hand, int score) {
+        super(name, bag, hand, score);
+        this.moveBudgetMillis = moveBudgetMillis;
+    }
+
+    /**
+     * Returns the time budget for each move.
+     *
+     * @return the budget in milliseconds
+     */
+    public long getMoveBudgetMillis() {
+        return moveBudgetMillis;
+    }
+
+    /**
+     * Chooses this player's move within its time budget.
+     *
+     * @param model the game being played
+     * @return the chosen move, or null if there is no legal move
+     */
+    public Move chooseMove(ScrabbleModel model) {
+        return findBestMove(model, this, System.nanoTime() + moveBudgetMillis * 1_000_000);
+    }
+
+    /**
+     * Searches for the best move for a player until a deadline.
+     * Generation itself stops at the deadline, and the candidates found are then
+     * ranked by score plus the value of the tiles left in the hand while time remains.
+     * While the bag still has tiles, any time left is spent simulating the best few of those
+     * against random opponent hands, and the move with the best mean result is played.
+     * Once the bag is empty in a two player game, the endgame solver searches to the end of the game instead,
+     * unless the deadline passes before it has searched a single ply.
+     *
+     * @param model the game being played
+     * @param player the player to move
+     * @param deadline the System.nanoTime() value by which the search must return
+     * @return the best move found, or null if there is no legal move or skipping is best
+     */
+    static Move findBestMove(ScrabbleModel model, Player player, long deadline) {
+        if (EndgameSolver.applies(model)) {
+            EndgameSolver.Result result = getEndgameSolver(model.getLexicon()).solve(model.getBoard(),
+                    MoveGenerator.countTiles(player.getHand()), model.getUnseenCounts(player),
+                    model.getScorelessTurns(), deadline);
+            if (result != null) {
+                return result.getMove();
+            }
+            // Out of time before a ply was searched, so the best move by equity is played instead
+        }
+
+        MoveGenerator generator = new MoveGenerator(model.getLexicon());
+        List<Move> candidates = generator.generateTop(model.getBoard(), player.getHand(), CANDIDATES, true, deadline);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        // The top scoring move is the answer until something better is found
+        Move best = candidates.get(0);
+        int bestEquity = Integer.MIN_VALUE;
+        int[] counts = MoveGenerator.countTiles(player.getHand());
+        List<Move> ranked = new ArrayList<>();
+        List<Integer> equities = new ArrayList<>();
+        for (Move move : candidates) {
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+            int equity = move.getScore() + leaveValue(counts, move, model.getBoard());
+            if (equity > bestEquity) {
+                bestEquity = equity;
+                best = move;
+            }
+            // Keep the best few by equity, in order, for simulation
+            int index = 0;
+            while (index < equities.size() && equities.get(index) >= equity) {
+                index++;
+            }
+            if (index < SIMULATED) {
+                ranked.add(index, move);
+                equities.add(index, equity);
+                if (ranked.size() > SIMULATED) {
+                    ranked.removeLast();
+                    equities.removeLast();
+                }
+            }
+        }
+
+        long now = System.nanoTime();
+        if (ranked.size() > 1 && model.getBag().getTileCount() > 0 && now < deadline) {
+            // Leave a tenth of the remaining time for the workers to finish their playouts and hand back
+            long simulationDeadline = deadline - (deadline - now) / 10;
+            MonteCarloSimulator.Report report = getSimulator(model.getLexicon()).simulate(model.getBoard(), counts,
+                    model.getUnseenCounts(player), ranked, SIMULATION_PLIES, Integer.MAX_VALUE, simulationDeadline);
+            SimulationResult top = report.getResults().getFirst();
+            if (top.getIterations() > 0) {
+                best = top.getMove(); // Otherwise nothing was simulated, and the best move by equity stands
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the simulator shared by all computer players of games in a lexicon, creating it on first use.
+     *
+     * @param lexicon the lexicon of the game being played
+     * @return the simulator
+     */
+    private static MonteCarloSimulator getSimulator(Lexicon lexicon) {
+        return simulators.computeIfAbsent(lexicon, key -> new MonteCarloSimulator(key,
+                Runtime.getRuntime().availableProcessors(), System.nanoTime()));
+    }
+
+    /**
+     * Returns the calling thread's endgame solver, creating it on first use.
+     * The solver keeps its transposition table between the turns of a game played on the thread.
+     *
+     * @param lexicon the lexicon of the game being played
+     * @return the solver
+     */
+    private static EndgameSolver getEndgameSolver(Lexicon lexicon) {
+        EndgameSolver solver = endgameSolvers.get();
+        if (solver == null || solver.getLexicon() != lexicon) {
+            solver = new EndgameSolver(lexicon);
+            endgameSolvers.set(solver);
+        }
+        return solver;
+    }
+
+    /**
+     * Estimates the value of the tiles left in the hand after a move.
+     * Duplicate letters and a poor mix of vowels and consonants are penalized.
+     *
+     * @param counts the hand's tile counts, as from MoveGenerator.countTiles
+     * @param move the move being played
+     * @param board the board the move is played on
+     * @return the estimated value of the leave
+     */
+    static int leaveValue(int[] counts, Move move, Board board) {
+        int[] leave = counts.clone();
+        String letters = move.getLetters();
+        for (int i = 0; i < letters.length(); i++) {
+            int xIndex = move.getDirection() == 'D' ? move.getX() : move.getX() + i;
+            int yIndex = move.getDirection() == 'D' ? move.getY() + i : move.getY();
+            if (board.isEmpty(xIndex, yIndex)) {
+                leave[move.isBlank(i) ? MoveGenerator.BLANK : letters.charAt(i) - 'a']--;
+            }
+        }
+
+        int value = 0;
+        int vowels = 0;
+        int consonants = 0;
+        for (int i = 0; i < leave.length; i++) {
+            if (leave[i] == 0) {
+                continue;
+            }
+            value += leave[i] * LEAVE_VALUES[i] - 3 * (leave[i] - 1);
+            if (i == MoveGenerator.BLANK) {
+                continue;
+            }
+            if ("aeiou".indexOf('a' + i) >= 0) {
+                vowels += leave[i];
+            } else {
+                consonants += leave[i];
+            }
+        }
+        return value - 2 * Math.abs(vowels - consonants);
+    }
+}
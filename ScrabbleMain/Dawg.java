@@ -0,0 +1,256 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A minimized directed acyclic word graph (DAWG).
+ * Shared suffixes are stored once, and each node is packed into three int arrays:
+ * a letter mask, the index of its first edge, and the edge targets in letter order.
+ */
+public class Dawg implements Lexicon {
+    static final int TERMINAL = 1 << 26;
+    static final int LETTERS = TERMINAL - 1;
+
+    private final int[] nodeMasks;
+    private final int[] firstEdges;
+    private final int[] edgeTargets;
+    private final int wordCount;
+
+    /**
+     * Constructor for a DAWG from already packed arrays.
+     *
+     * @param nodeMasks the letter mask of each node, with TERMINAL set for word ends.
+     * @param firstEdges the index of each node's first edge in edgeTargets.
+     * @param edgeTargets the target node of every edge.
+     * @param wordCount the number of words in the graph.
+     */
+    Dawg(int[] nodeMasks, int[] firstEdges, int[] edgeTargets, int wordCount) {
+        this.nodeMasks = nodeMasks;
+        this.firstEdges = firstEdges;
+        this.edgeTargets = edgeTargets;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * Builds a minimized DAWG from a collection of words.
+     * Words are lowercased, and blank lines are ignored.
+     *
+     * @param words the words to add.
+     * @return the built DAWG.
+     * @throws IllegalArgumentException if a word contains a character other than a letter from 'a' to 'z'.
+     */
+    public static Dawg build(Collection<String> words) {
+        String[] sorted = new String[words.size()];
+        int n = 0;
+        for (String word : words) {
+            String w = word.trim().toLowerCase();
+            if (w.isEmpty()) {
+                continue;
+            }
+            for (int i = 0; i < w.length(); i++) {
+                if (Lexicon.letterIndex(w.charAt(i)) < 0) {
+                    throw new IllegalArgumentException("Not a valid word: " + word);
+                }
+            }
+            sorted[n++] = w;
+        }
+        Arrays.sort(sorted, 0, n);
+
+        // Daciuk's incremental algorithm: insert words in sorted order and minimize
+        // the previous word's suffix as soon as no later word can share it
+        Builder builder = new Builder();
+        String previous = "";
+        int count = 0;
+        for (int k = 0; k < n; k++) {
+            String word = sorted[k];
+            if (word.equals(previous)) {
+                continue;
+            }
+            builder.add(word);
+            previous = word;
+            count++;
+        }
+        return builder.finish(count);
+    }
+
+    @Override
+    public int root() {
+        return 0;
+    }
+
+    @Override
+    public int child(int node, char letter) {
+        int i = Lexicon.letterIndex(letter);
+        if (i < 0) {
+            return NONE;
+        }
+        int bit = 1 << i;
+        int mask = nodeMasks[node];
+        if ((mask & bit) == 0) {
+            return NONE;
+        }
+        return edgeTargets[firstEdges[node] + Integer.bitCount(mask & (bit - 1))];
+    }
+
+    @Override
+    public boolean isTerminal(int node) {
+        return (nodeMasks[node] & TERMINAL) != 0;
+    }
+
+    @Override
+    public int childMask(int node) {
+        return nodeMasks[node] & LETTERS;
+    }
+
+    @Override
+    public int wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Returns the number of nodes in the graph.
+     *
+     * @return the node count.
+     */
+    public int nodeCount() {
+        return nodeMasks.length;
+    }
+
+    int[] getNodeMasks() {
+        return nodeMasks;
+    }
+
+    int[] getFirstEdges() {
+        return firstEdges;
+    }
+
+    int[] getEdgeTargets() {
+        return edgeTargets;
+    }
+
+    /**
+     * A node used while the graph is being built.
+     */
+    private static class BuildNode {
+        boolean terminal;
+        char[] letters = new char[0];
+        BuildNode[] children = new BuildNode[0];
+        int id = -1; // Set once the node is in the register
+
+        BuildNode lastChild() {
+            return children.length == 0 ? null : children[children.length - 1];
+        }
+
+        char lastLetter() {
+            return letters.length == 0 ? 0 : letters[letters.length - 1];
+        }
+
+        void append(char letter, BuildNode child) {
+            letters = Arrays.copyOf(letters, letters.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            letters[letters.length - 1] = letter;
+            children[children.length - 1] = child;
+        }
+
+        /**
+         * Builds a key that is equal for two nodes exactly when they accept the same suffixes,
+         * assuming all children are already registered.
+         */
+        String signature() {
+            StringBuilder key = new StringBuilder(terminal ? "1" : "0");
+            for (int i = 0; i < letters.length; i++) {
+                key.append(letters[i]).append(children[i].id).append(',');
+            }
+            return key.toString();
+        }
+    }
+
+    /**
+     * Incremental builder for sorted, distinct words.
+     */
+    private static class Builder {
+        private final BuildNode root = new BuildNode();
+        private final HashMap<String, BuildNode> register = new HashMap<>();
+        private int nextId = 0;
+
+        void add(String word) {
+            // Follow the prefix shared with the previous word
+            BuildNode node = root;
+            int i = 0;
+            while (i < word.length() && node.lastLetter() == word.charAt(i)) {
+                node = node.lastChild();
+                i++;
+            }
+            if (node.lastChild() != null) {
+                replaceOrRegister(node);
+            }
+            // Add the rest of the word as a new branch
+            for (; i < word.length(); i++) {
+                BuildNode next = new BuildNode();
+                node.append(word.charAt(i), next);
+                node = next;
+            }
+            node.terminal = true;
+        }
+
+        private void replaceOrRegister(BuildNode node) {
+            BuildNode child = node.lastChild();
+            if (child.lastChild() != null) {
+                replaceOrRegister(child);
+            }
+            String key = child.signature();
+            BuildNode existing = register.get(key);
+            if (existing != null) {
+                node.children[node.children.length - 1] = existing;
+            } else {
+                child.id = nextId++;
+                register.put(key, child);
+            }
+        }
+
+        Dawg finish(int wordCount) {
+            if (root.lastChild() != null) {
+                replaceOrRegister(root);
+            }
+
+            // Number the nodes breadth first, root first, and pack them into arrays
+            HashMap<BuildNode, Integer> index = new HashMap<>();
+            List<BuildNode> order = new ArrayList<>();
+            ArrayDeque<BuildNode> queue = new ArrayDeque<>();
+            index.put(root, 0);
+            order.add(root);
+            queue.add(root);
+            int edgeCount = 0;
+            while (!queue.isEmpty()) {
+                BuildNode node = queue.poll();
+                edgeCount += node.children.length;
+                for (BuildNode child : node.children) {
+                    if (!index.containsKey(child)) {
+                        index.put(child, order.size());
+                        order.add(child);
+                        queue.add(child);
+                    }
+                }
+            }
+
+            int[] masks = new int[order.size()];
+            int[] first = new int[order.size()];
+            int[] targets = new int[edgeCount];
+            int edge = 0;
+            for (int n = 0; n < order.size(); n++) {
+                BuildNode node = order.get(n);
+                int mask = node.terminal ? TERMINAL : 0;
+                first[n] = edge;
+                for (int i = 0; i < node.letters.length; i++) {
+                    mask |= 1 << (node.letters[i] - 'a');
+                    targets[edge++] = index.get(node.children[i]);
+                }
+                masks[n] = mask;
+            }
+            return new Dawg(masks, first, targets, wordCount);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of loaded lexicons.
+ * Each dictionary is loaded once, on first use, and shared by every model that refers to its identifier.
+ * Lexicons are immutable, so they can be read from any thread.
+ */
+public final class Dictionaries {
+    /** Identifier of the default dictionary, "src/scrabble.dawg" or "src/scrabble.txt". */
+    public static final String DEFAULT_ID = "scrabble";
+
+    private static final ConcurrentHashMap<String, Lexicon> loaded = new ConcurrentHashMap<>();
+
+    private Dictionaries() {
+    }
+
+    /**
+     * Returns the lexicon for an identifier, loading it the first time it is asked for.
+     *
+     * @param id the dictionary identifier, the file name in 'src' without its extension.
+     * @return the shared lexicon.
+     */
+    public static Lexicon get(String id) {
+        return loaded.computeIfAbsent(id, Dictionaries::load);
+    }
+
+    /**
+     * Loads a lexicon, preferring the compiled dictionary "src/[id].dawg"
+     * and falling back to the word list "src/[id].txt" if it is missing or invalid.
+     *
+     * @param id the dictionary identifier.
+     * @return the loaded lexicon.
+     */
+    private static Lexicon load(String id) {
+        return load(new File("src/" + id + ".dawg"), new File("src/" + id + ".txt"));
+    }
+
+    /**
+     * Loads a lexicon from a compiled dictionary, falling back to a word list if it is missing or invalid.
+     *
+     * @param compiled the compiled dictionary file.
+     * @param wordList the word list, one word per line.
+     * @return the loaded lexicon.
+     */
+    static Lexicon load(File compiled, File wordList) {
+        if (compiled.exists()) {
+            try {
+                return MappedLexicon.open(compiled);
+            } catch (IOException e) {
+                System.out.println("Error loading compiled dictionary, using word list:" + e.getMessage());
+            }
+        }
+        return loadWordsFromFile(wordList);
+    }
+
+    /**
+     * Loads valid words from a file into a DAWG lexicon for fast lookup.
+     *
+     * @param file the word list, one word per line.
+     * @return the built lexicon.
+     */
+    private static Lexicon loadWordsFromFile(File file) {
+        Scanner scanner;
+        try {
+            scanner = new Scanner(file);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+
+        List<String> words = new ArrayList<>();
+        while (scanner.hasNextLine()) {
+            words.add(scanner.nextLine().trim()); // Add each word to the list after trimming whitespace
+        }
+
+        scanner.close();
+        return Dawg.build(words);
+    }
+}
@@ -0,0 +1,75 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Offline tool that compiles a word list (one word per line) into the binary dictionary format
+ * read by MappedLexicon.
+ *
+ * Layout, all ints big-endian: magic, version, word count, node count, edge count,
+ * CRC32 of everything after the header, then the node masks, first edges and edge targets of the DAWG.
+ */
+public class DictionaryCompiler {
+
+    /**
+     * Compiles a word list into a dictionary file.
+     *
+     * @param wordList the text file to read, one word per line.
+     * @param output the dictionary file to write.
+     * @return the compiled DAWG.
+     * @throws IOException if the word list cannot be read or the output cannot be written.
+     */
+    public static Dawg compile(File wordList, File output) throws IOException {
+        List<String> words = Files.readAllLines(wordList.toPath());
+        Dawg dawg = Dawg.build(words);
+        write(dawg, output);
+        return dawg;
+    }
+
+    /**
+     * Writes a DAWG to a dictionary file.
+     *
+     * @param dawg the DAWG to write.
+     * @param output the dictionary file to write.
+     * @throws IOException if the output cannot be written.
+     */
+    public static void write(Dawg dawg, File output) throws IOException {
+        int[] masks = dawg.getNodeMasks();
+        int[] first = dawg.getFirstEdges();
+        int[] targets = dawg.getEdgeTargets();
+
+        ByteBuffer payload = ByteBuffer.allocate(4 * (masks.length + first.length + targets.length));
+        payload.asIntBuffer().put(masks).put(first).put(targets);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+            out.writeInt(MappedLexicon.MAGIC);
+            out.writeInt(MappedLexicon.VERSION);
+            out.writeInt(dawg.wordCount());
+            out.writeInt(masks.length);
+            out.writeInt(targets.length);
+            out.writeInt((int) crc.getValue());
+            out.write(payload.array());
+        }
+    }
+
+    /**
+     * Compiles a word list from the command line.
+     * Usage: DictionaryCompiler [wordList] [output], defaulting to src/scrabble.txt and src/scrabble.dawg.
+     *
+     * @param args the word list and output paths.
+     */
+    public static void main(String[] args) throws IOException {
+        File wordList = new File(args.length > 0 ? args[0] : "src/scrabble.txt");
+        File output = new File(args.length > 1 ? args[1] : "src/scrabble.dawg");
+        Dawg dawg = compile(wordList, output);
+        System.out.println("Compiled " + dawg.wordCount() + " words (" + dawg.nodeCount() + " nodes) into " + output);
+    }
+}
@@ -0,0 +1,370 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Solves two-player endgames, where the bag is empty and each player can see the other's hand.
+ *
+ * The search is a negamax alpha-beta over the points still to be scored, from the point of view of the
+ * player to move. The game ends when a player uses all their tiles or after PASSES_TO_END passes in a row,
+ * two for each player, as ScrabbleModel.isGameOver counts scoreless turns.
+ * Moves are tried highest score first, after the best move remembered for the position, and positions
+ * reached by different move orders share one entry in a transposition table keyed by a Zobrist hash of
+ * the board and both hands. The search deepens one ply at a time, so the deepest completed answer is
+ * available when the deadline passes; a search that reaches the end of every line is exact.
+ * A solver holds the state of the search it is running, so each thread needs its own.
+ */
+public class EndgameSolver {
+    private static final int TABLE_BITS = 18;
+    private static final int EXACT = 0;
+    private static final int LOWER = 1;
+    private static final int UPPER = 2;
+    private static final int MAX_DEPTH = 64;
+    private static final int PASSES_TO_END = 2 * 2; // Two scoreless turns for each of the two players
+
+    // Zobrist keys: a letter on a square (blanks separately, as they score as blanks), and a tile in either hand
+    private static final long[][] CELL_KEYS = new long[225][52];
+    private static final long[][] RACK_KEYS = new long[2][27];
+    private static final long[] PASS_KEYS = new long[PASSES_TO_END];
+    private static final long SIDE_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x53435241L);
+        for (long[] keys : CELL_KEYS) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+        for (long[] keys : RACK_KEYS) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < PASS_KEYS.length; i++) {
+            PASS_KEYS[i] = random.nextLong();
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private final Lexicon lexicon;
+    private final MoveGenerator generator;
+
+    // Transposition table, one entry per slot, always replaced
+    private final long[] tableKeys = new long[1 << TABLE_BITS];
+    private final int[] tableValues = new int[1 << TABLE_BITS];
+    private final byte[] tableDepths = new byte[1 << TABLE_BITS];
+    private final byte[] tableBounds = new byte[1 << TABLE_BITS];
+    private final Move[] tableMoves = new Move[1 << TABLE_BITS];
+
+    // Search state
+    private Board board;
+    private int[][] racks;
+    private long boardHash;
+    private long deadline;
+    private boolean outOfTime;
+    private boolean reachedHorizon;
+    private int rootDepth;
+    private Move rootMove;
+    private long nodes;
+
+    /**
+     * Constructor for the EndgameSolver class.
+     *
+     * @param lexicon the lexicon moves must be valid in
+     */
+    public EndgameSolver(Lexicon lexicon) {
+        this.lexicon = lexicon;
+        this.generator = new MoveGenerator(lexicon);
+    }
+
+    public Lexicon getLexicon() {
+        return lexicon;
+    }
+
+    /**
+     * The answer of a search: the move to play and what it is worth.
+     */
+    public static class Result {
+        private final Move move;
+        private final int spread;
+        private final int depth;
+        private final boolean exact;
+        private final long nodes;
+
+        Result(Move move, int spread, int depth, boolean exact, long nodes) {
+            this.move = move;
+            this.spread = spread;
+            this.depth = depth;
+            this.exact = exact;
+            this.nodes = nodes;
+        }
+
+        /**
+         * Returns the move to play.
+         *
+         * @return the move, or null if passing is best
+         */
+        public Move getMove() {
+            return move;
+        }
+
+        /**
+         * Returns the points the player to move gains over the opponent from here to the end of the game
+         * with best play, or to the search depth if the result is not exact.
+         *
+         * @return the spread
+         */
+        public int getSpread() {
+            return spread;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+    }
+
+    /**
+     * Checks if a game has reached an endgame this solver can play.
+     *
+     * @param model the game being played
+     * @return true if there are two players and the bag is empty
+     */
+    public static boolean applies(ScrabbleModel model) {
+        return model.getPlayers().size() == 2 && model.getBag().getTileCount() == 0;
+    }
+
+    /**
+     * Solves the endgame for the current player of a game.
+     *
+     * @param model the game being played, which must be an endgame this solver applies to
+     * @param deadline the System.nanoTime() value at which to stop deepening
+     * @return the result of the deepest completed search, or null if not even the first ply was searched in time
+     */
+    public Result solve(ScrabbleModel model, long deadline) {
+        return solve(model.getState(), deadline);
+    }
+
+    /**
+     * Solves the endgame for the player to move in a game state.
+     *
+     * @param state a two-player position with an empty bag
+     * @param deadline the System.nanoTime() value at which to stop deepening
+     * @return the result of the deepest completed search, or null if not even the first ply was searched in time
+     */
+    public Result solve(GameState state, long deadline) {
+        int mover = state.getCurrentPlayer();
+        return solve(state.toBoard(), state.getRack(mover), state.getUnseenCounts(mover), state.getScorelessTurns(),
+                deadline);
+    }
+
+    /**
+     * Solves an endgame position.
+     * The transposition table is kept between calls, as its entries stay true for later positions of the game.
+     *
+     * @param board the board, which is not changed
+     * @param moverRack the tile counts of the player to move, with blanks at index 26
+     * @param opponentRack the tile counts of the other player
+     * @param passes the number of scoreless turns just before this one
+     * @param deadline the System.nanoTime() value at which to stop deepening
+     * @return the result of the deepest completed search, or null if not even the first ply was searched in time
+     */
+    public Result solve(Board board, int[] moverRack, int[] opponentRack, int passes, long deadline) {
+        int rootPasses = Math.min(passes, PASSES_TO_END - 1); // Any more and the game would already be over
+        this.board = new Board(board);
+        this.racks = new int[][] {moverRack.clone(), opponentRack.clone()};
+        this.deadline = deadline;
+        this.nodes = 0;
+        boardHash = 0;
+        for (int x = 0; x < 15; x++) {
+            for (int y = 0; y < 15; y++) {
+                Tile tile = board.getTile(x, y);
+                if (tile != null) {
+                    boardHash ^= CELL_KEYS[x * 15 + y][letterKey(tile.getTileChar(), tile.isBlank())];
+                }
+            }
+        }
+
+        Result result = null;
+        for (int depth = 1; depth < MAX_DEPTH; depth++) {
+            outOfTime = false;
+            reachedHorizon = false;
+            rootDepth = depth;
+            rootMove = null;
+            int value = search(0, rootPasses, depth, -Integer.MAX_VALUE, Integer.MAX_VALUE);
+            if (outOfTime) {
+                break;
+            }
+            result = new Result(rootMove, value, depth, !reachedHorizon, nodes);
+            if (!reachedHorizon) {
+                break; // Every line ended before the depth limit, so deeper searches would find the same
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the hash of the current position with a player to move after a number of passes in a row.
+     */
+    private long hash(int side, int passes) {
+        long key = boardHash ^ PASS_KEYS[passes];
+        if (side == 1) {
+            key ^= SIDE_KEY;
+        }
+        for (int player = 0; player < 2; player++) {
+            for (int i = 0; i < 27; i++) {
+                key += racks[player][i] * RACK_KEYS[player][i];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Searches the position for the player to move and returns the best spread from here.
+     *
+     * @param side the index of the player to move in racks
+     * @param passes the number of passes just before this turn
+     * @param depth the number of plies left to search
+     * @param alpha the lower bound of interest
+     * @param beta the upper bound of interest
+     */
+    private int search(int side, int passes, int depth, int alpha, int beta) {
+        if (depth == 0) {
+            reachedHorizon = true;
+            return 0;
+        }
+        nodes++;
+
+        long key = hash(side, passes);
+        int slot = (int) (key >>> (64 - TABLE_BITS));
+        Move remembered = null;
+        if (tableKeys[slot] == key) {
+            remembered = tableMoves[slot];
+            if (tableDepths[slot] >= depth && depth != rootDepth) { // The root must search to find its move
+                int value = tableValues[slot];
+                if (tableBounds[slot] == EXACT
+                        || tableBounds[slot] == LOWER && value >= beta
+                        || tableBounds[slot] == UPPER && value <= alpha) {
+                    reachedHorizon |= tableDepths[slot] != MAX_DEPTH;
+                    return value;
+                }
+            }
+        }
+
+        // Track whether this position's own lines reach the horizon, to know how deep its entry is good for
+        boolean outerReachedHorizon = reachedHorizon;
+        reachedHorizon = false;
+
+        int[] rack = racks[side];
+        List<Move> moves = generator.generateTop(board, rack, Integer.MAX_VALUE, false, deadline);
+        if (System.nanoTime() >= deadline) {
+            outOfTime = true; // The moves may be incomplete, so this search is abandoned
+            return 0;
+        }
+        List<Move> ordered = new ArrayList<>(moves.size() + 1);
+        if (remembered != null) {
+            ordered.add(remembered);
+        }
+        for (Move move : moves) {
+            if (remembered == null || !sameMove(move, remembered)) {
+                ordered.add(move);
+            }
+        }
+        ordered.add(null); // Passing is always allowed
+
+        int originalAlpha = alpha;
+        int best = -Integer.MAX_VALUE;
+        Move bestMove = null;
+        for (Move move : ordered) {
+            int value;
+            if (move == null) {
+                // The last pass allowed in a row ends the game
+                value = passes + 1 == PASSES_TO_END ? 0
+                        : -search(1 - side, passes + 1, depth - 1, -beta, -alpha);
+            } else {
+                List<int[]> placed = play(move, side);
+                boolean wentOut = true;
+                for (int count : rack) {
+                    wentOut &= count == 0;
+                }
+                value = move.getScore() + (wentOut ? 0 : -search(1 - side, 0, depth - 1, -beta, -alpha));
+                undo(placed, side);
+            }
+            if (outOfTime) {
+                return 0;
+            }
+            if (value > best) {
+                best = value;
+                bestMove = move;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        if (depth == rootDepth) {
+            rootMove = bestMove;
+        }
+        tableKeys[slot] = key;
+        tableValues[slot] = best;
+        tableDepths[slot] = (byte) (reachedHorizon ? depth : MAX_DEPTH); // Searched to the end, good at any depth
+        reachedHorizon |= outerReachedHorizon;
+        tableBounds[slot] = (byte) (best <= originalAlpha ? UPPER : best >= beta ? LOWER : EXACT);
+        tableMoves[slot] = bestMove;
+        return best;
+    }
+
+    /**
+     * Places a move's new tiles and takes them from the mover's hand.
+     *
+     * @return the x and y of each placed tile
+     */
+    private List<int[]> play(Move move, int side) {
+        List<int[]> placed = new ArrayList<>(7);
+        String letters = move.getLetters();
+        for (int i = 0; i < letters.length(); i++) {
+            int xIndex = move.getDirection() == 'D' ? move.getX() : move.getX() + i;
+            int yIndex = move.getDirection() == 'D' ? move.getY() + i : move.getY();
+            if (board.isEmpty(xIndex, yIndex)) {
+                boolean blank = move.isBlank(i);
+                Tile tile = new Tile(blank ? ' ' : letters.charAt(i));
+                tile.setTileChar(letters.charAt(i));
+                board.addLetter(xIndex, yIndex, tile);
+                boardHash ^= CELL_KEYS[xIndex * 15 + yIndex][letterKey(letters.charAt(i), blank)];
+                racks[side][blank ? MoveGenerator.BLANK : letters.charAt(i) - 'a']--;
+                placed.add(new int[] {xIndex, yIndex});
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * Takes back the tiles placed by play and returns them to the mover's hand.
+     */
+    private void undo(List<int[]> placed, int side) {
+        for (int[] cell : placed) {
+            Tile tile = board.removeLetter(cell[0], cell[1]);
+            boardHash ^= CELL_KEYS[cell[0] * 15 + cell[1]][letterKey(tile.getTileChar(), tile.isBlank())];
+            racks[side][tile.isBlank() ? MoveGenerator.BLANK : tile.getTileChar() - 'a']++;
+        }
+    }
+
+    private static int letterKey(char letter, boolean blank) {
+        return Character.toLowerCase(letter) - 'a' + (blank ? 26 : 0);
+    }
+
+    private static boolean sameMove(Move a, Move b) {
+        return a.getX() == b.getX() && a.getY() == b.getY() && a.getDirection() == b.getDirection()
+                && a.getBlankMask() == b.getBlankMask() && a.getLetters().equals(b.getLetters());
+    }
+}
@@ -0,0 +1,313 @@
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * An immutable position of a game: the letters on the board, each player's rack and score,
+ * the tiles left in the bag in the order they will be drawn, and whose turn it is.
+ *
+ * Playing a move returns a new state that shares everything the move did not change with the old one:
+ * only the board columns a word crosses and the mover's rack are copied, and the bag is a shared array
+ * read from the top down, so drawing only moves its top. Holding on to a state is all it takes to keep
+ * a snapshot, and since nothing in a state is ever changed, it can be read from any number of threads.
+ */
+public final class GameState implements Serializable {
+    private static final int RACK_SIZE = 7;
+
+    private final String tileSetId;
+    private final String layoutId;
+    private final byte[] premiums;
+    private final byte[][] columns;
+    private final int tileCount;
+    private final int[][] racks;
+    private final int[] scores;
+    private final byte[] bag;
+    private final int bagSize;
+    private final int currentPlayer;
+    private final boolean firstMove;
+    private final int scorelessTurns;
+
+    private GameState(String tileSetId, String layoutId, byte[] premiums, byte[][] columns, int tileCount,
+                      int[][] racks, int[] scores, byte[] bag, int bagSize, int currentPlayer, boolean firstMove,
+                      int scorelessTurns) {
+        this.tileSetId = tileSetId;
+        this.layoutId = layoutId;
+        this.premiums = premiums;
+        this.columns = columns;
+        this.tileCount = tileCount;
+        this.racks = racks;
+        this.scores = scores;
+        this.bag = bag;
+        this.bagSize = bagSize;
+        this.currentPlayer = currentPlayer;
+        this.firstMove = firstMove;
+        this.scorelessTurns = scorelessTurns;
+    }
+
+    /**
+     * Captures the position of a game.
+     *
+     * @param board the board.
+     * @param bag the bag, whose draw order is kept.
+     * @param players the players, in turn order.
+     * @param currentPlayer the index of the player to move.
+     * @param firstMove true if no word has been played yet.
+     * @param scorelessTurns the number of scoreless turns in a row.
+     * @return the state.
+     */
+    static GameState of(Board board, Bag bag, List<Player> players, int currentPlayer, boolean firstMove,
+                        int scorelessTurns) {
+        byte[][] columns = new byte[15][15];
+        for (int x = 0; x < 15; x++) {
+            for (int y = 0; y < 15; y++) {
+                columns[x][y] = board.getCode(x, y);
+            }
+        }
+        int[][] racks = new int[players.size()][];
+        int[] scores = new int[players.size()];
+        for (int i = 0; i < racks.length; i++) {
+            racks[i] = MoveGenerator.countTiles(players.get(i).getHand());
+            scores[i] = players.get(i).getScore();
+        }
+        byte[] order = bag.getDrawOrder();
+        return new GameState(board.getTileSet().getId(), board.getLayoutId(), board.getPremiumGrid(), columns,
+                board.getTileCount(), racks, scores, order, order.length, currentPlayer, firstMove, scorelessTurns);
+    }
+
+    /**
+     * Plays a generated move for the player to move.
+     *
+     * @param move the move, which must be legal in this state.
+     * @return the state after the move, with the mover's rack refilled from the bag.
+     * @throws IllegalArgumentException if the move does not fit the board or the mover's rack.
+     */
+    public GameState play(Move move) {
+        return play(move.getX(), move.getY(), move.getDirection(), move.getLetters(), move.getBlankMask(),
+                move.getScore());
+    }
+
+    /**
+     * Plays a checked move for the player to move.
+     *
+     * @param result a valid result from MoveValidator for this state.
+     * @return the state after the move, with the mover's rack refilled from the bag.
+     * @throws IllegalArgumentException if the move does not fit the board or the mover's rack.
+     */
+    public GameState play(MoveResult result) {
+        List<Tile> word = result.getWord();
+        StringBuilder letters = new StringBuilder(word.size());
+        int blankMask = 0;
+        for (int i = 0; i < word.size(); i++) {
+            letters.append(word.get(i).getTileChar());
+            if (word.get(i).isBlank()) {
+                blankMask |= 1 << i;
+            }
+        }
+        return play(result.getX(), result.getY(), result.getDirection(), letters.toString(), blankMask,
+                result.getScore());
+    }
+
+    private GameState play(int x, int y, char direction, String letters, int blankMask, int score) {
+        int dx = direction == 'D' ? 0 : 1;
+        int dy = direction == 'D' ? 1 : 0;
+        byte[][] newColumns = columns.clone();
+        int[] rack = racks[currentPlayer].clone();
+        int placed = 0;
+        for (int i = 0; i < letters.length(); i++) {
+            int cx = x + dx * i;
+            int cy = y + dy * i;
+            if (cx > 14 || cy > 14 || cx < 0 || cy < 0) {
+                throw new IllegalArgumentException("The move does not fit on the board");
+            }
+            int letter = Lexicon.letterIndex(letters.charAt(i));
+            boolean blank = (blankMask & (1 << i)) != 0;
+            byte code = newColumns[cx][cy];
+            if (code != 0) {
+                if (Board.letterOf(code) != letter) {
+                    throw new IllegalArgumentException("The board has a different letter at " + cx + ", " + cy);
+                }
+                continue;
+            }
+            int tile = blank ? TileSet.BLANK : letter;
+            if (--rack[tile] < 0) {
+                throw new IllegalArgumentException("The rack does not hold the tiles for the move");
+            }
+            if (newColumns[cx] == columns[cx]) {
+                newColumns[cx] = columns[cx].clone(); // Copy a column the first time the move changes it
+            }
+            newColumns[cx][cy] = Board.code(letter, blank);
+            placed++;
+        }
+        if (placed == 0) {
+            throw new IllegalArgumentException("The move places no tiles");
+        }
+
+        // Refill the rack from the top of the bag
+        int top = bagSize;
+        for (int held = rackSize(rack); held < RACK_SIZE && top > 0; held++) {
+            rack[bag[--top]]++;
+        }
+
+        int[][] newRacks = racks.clone();
+        newRacks[currentPlayer] = rack;
+        int[] newScores = scores.clone();
+        newScores[currentPlayer] += score;
+        return new GameState(tileSetId, layoutId, premiums, newColumns, tileCount + placed, newRacks, newScores, bag,
+                top, (currentPlayer + 1) % racks.length, false, 0);
+    }
+
+    /**
+     * Skips the turn of the player to move.
+     *
+     * @return the state after the skip, which shares everything but the turn with this one.
+     */
+    public GameState skip() {
+        return new GameState(tileSetId, layoutId, premiums, columns, tileCount, racks, scores, bag, bagSize,
+                (currentPlayer + 1) % racks.length, firstMove, scorelessTurns + 1);
+    }
+
+    /**
+     * Estimates the bytes this state holds that a later state does not share with it:
+     * the state itself, and whichever of its board columns, racks and scores the later state replaced.
+     *
+     * @param later a state played from this one.
+     * @return the estimated bytes freed if only the later state were kept.
+     */
+    long estimateSizeApartFrom(GameState later) {
+        long size = 56; // The state's header and fields
+        if (columns != later.columns) {
+            size += 16 + 4L * columns.length;
+            for (int x = 0; x < columns.length; x++) {
+                if (columns[x] != later.columns[x]) {
+                    size += 32; // A column of 15 bytes
+                }
+            }
+        }
+        if (racks != later.racks) {
+            size += 16 + 4L * racks.length;
+            for (int i = 0; i < racks.length; i++) {
+                if (racks[i] != later.racks[i]) {
+                    size += 16 + 4L * racks[i].length;
+                }
+            }
+        }
+        if (scores != later.scores) {
+            size += 16 + 4L * scores.length;
+        }
+        if (bag != later.bag) {
+            size += 16 + bag.length;
+        }
+        return size;
+    }
+
+    /**
+     * Builds a board of this position, for generating and checking moves.
+     *
+     * @return a new board, which may be changed without affecting the state.
+     */
+    public Board toBoard() {
+        return new Board(TileSet.get(tileSetId), layoutId, premiums, columns);
+    }
+
+    /**
+     * Retrieves the letter at the specified coordinates.
+     *
+     * @param x the x-coordinate of the square.
+     * @param y the y-coordinate of the square.
+     * @return the lowercase letter, or 0 if the square is empty.
+     */
+    public char getLetter(int x, int y) {
+        byte code = columns[x][y];
+        return code == 0 ? 0 : (char) ('a' + Board.letterOf(code));
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return columns[x][y] == 0;
+    }
+
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    public int getPlayerCount() {
+        return racks.length;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public boolean isFirstMove() {
+        return firstMove;
+    }
+
+    public int getScorelessTurns() {
+        return scorelessTurns;
+    }
+
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    /**
+     * Counts the tiles in a player's rack.
+     *
+     * @param player the index of the player.
+     * @return a new array of the count of each letter, with blanks counted at index 26.
+     */
+    public int[] getRack(int player) {
+        return racks[player].clone();
+    }
+
+    public int getBagSize() {
+        return bagSize;
+    }
+
+    /**
+     * Counts the tiles a player cannot see: those in the bag and in the other players' racks.
+     *
+     * @param player the index of the player whose view is wanted.
+     * @return the count of each letter, with blanks counted at index 26.
+     */
+    public int[] getUnseenCounts(int player) {
+        int[] unseen = new int[27];
+        for (int i = 0; i < bagSize; i++) {
+            unseen[bag[i]]++;
+        }
+        for (int p = 0; p < racks.length; p++) {
+            if (p != player) {
+                for (int i = 0; i < unseen.length; i++) {
+                    unseen[i] += racks[p][i];
+                }
+            }
+        }
+        return unseen;
+    }
+
+    /**
+     * Checks if the game is over: a player has used all their tiles with the bag empty,
+     * or every player has skipped twice in a row.
+     *
+     * @return true if the game is over.
+     */
+    public boolean isGameOver() {
+        if (scorelessTurns >= 2 * racks.length) {
+            return true;
+        }
+        if (bagSize == 0) {
+            for (int[] rack : racks) {
+                if (rackSize(rack) == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int rackSize(int[] rack) {
+        int size = 0;
+        for (int count : rack) {
+            size += count;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,15 @@
+import java.io.Serializable;
+
+/**
+ * One step in a game's undo history: a record of what the step changed,
+ * which ScrabbleModel reverses to undo it and applies again to redo it.
+ */
+public interface HistoryEntry extends Serializable {
+    /**
+     * Estimates the bytes of heap the entry holds on to that nothing else in the game does,
+     * which UndoHistory keeps within its budget.
+     *
+     * @return the estimated size in bytes.
+     */
+    long estimateSize();
+}
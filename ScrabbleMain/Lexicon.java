@@ -0,0 +1,110 @@
+/**
+ * A read-only word list that can be walked one letter at a time.
+ * Nodes are identified by plain ints so that a walk never creates objects,
+ * which lets the move generator follow prefixes straight through the dictionary.
+ */
+public interface Lexicon {
+    /** Node value returned when a walk falls off the word list. */
+    int NONE = -1;
+
+    /**
+     * Returns the node for the empty prefix.
+     *
+     * @return the root node.
+     */
+    int root();
+
+    /**
+     * Follows the edge for a letter out of a node.
+     *
+     * @param node the node to walk from.
+     * @param letter the next letter (case-insensitive).
+     * @return the node reached, or NONE if no word continues with that letter.
+     */
+    int child(int node, char letter);
+
+    /**
+     * Checks if the prefix that leads to a node is a complete word.
+     *
+     * @param node the node to check.
+     * @return true if a word ends at this node, false otherwise.
+     */
+    boolean isTerminal(int node);
+
+    /**
+     * Returns the set of letters that continue a node, one bit per letter ('a' is bit 0).
+     *
+     * @param node the node to check.
+     * @return the letter mask for the node's outgoing edges.
+     */
+    int childMask(int node);
+
+    /**
+     * Returns the number of words in the lexicon.
+     *
+     * @return the word count.
+     */
+    int wordCount();
+
+    /**
+     * Walks a sequence of letters from a node.
+     *
+     * @param node the node to start at.
+     * @param letters the letters to follow.
+     * @return the node reached, or NONE if the walk falls off the word list.
+     */
+    default int walk(int node, CharSequence letters) {
+        for (int i = 0; i < letters.length() && node != NONE; i++) {
+            node = child(node, letters.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Checks if a word is in the lexicon.
+     *
+     * @param word the word to check.
+     * @return true if the word exists, false otherwise.
+     */
+    default boolean contains(CharSequence word) {
+        int node = walk(root(), word);
+        return node != NONE && isTerminal(node);
+    }
+
+    /**
+     * Checks if the letters in part of a reusable buffer form a word, without creating a String.
+     *
+     * @param letters the buffer holding the letters.
+     * @param offset the index of the first letter.
+     * @param length the number of letters.
+     * @return true if the word exists, false otherwise.
+     */
+    default boolean contains(char[] letters, int offset, int length) {
+        int node = root();
+        for (int i = offset; i < offset + length && node != NONE; i++) {
+            node = child(node, letters[i]);
+        }
+        return node != NONE && isTerminal(node);
+    }
+
+    /**
+     * Checks if any word in the lexicon starts with the given prefix.
+     *
+     * @param prefix the prefix to check.
+     * @return true if at least one word begins with the prefix, false otherwise.
+     */
+    default boolean hasPrefix(CharSequence prefix) {
+        return walk(root(), prefix) != NONE;
+    }
+
+    /**
+     * Converts a letter to its bit index, or -1 if it is not a letter from 'a' to 'z'.
+     *
+     * @param letter the letter to convert (case-insensitive).
+     * @return the index of the letter, from 0 to 25.
+     */
+    static int letterIndex(char letter) {
+        int i = (letter | 0x20) - 'a';
+        return i >= 0 && i < 26 ? i : -1;
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A DAWG lexicon read in place from a memory-mapped dictionary file written by DictionaryCompiler.
+ * Opening a file only checks its header and checksum; no per-word objects are created.
+ */
+public class MappedLexicon implements Lexicon {
+    static final int MAGIC = 0x53434457; // "SCDW"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+
+    private final IntBuffer nodeMasks;
+    private final IntBuffer firstEdges;
+    private final IntBuffer edgeTargets;
+    private final int wordCount;
+
+    /**
+     * Constructor for a MappedLexicon over a validated buffer.
+     *
+     * @param buffer the mapped file, positioned at the start.
+     */
+    private MappedLexicon(ByteBuffer buffer) {
+        wordCount = buffer.getInt(8);
+        int nodeCount = buffer.getInt(12);
+        int edgeCount = buffer.getInt(16);
+        IntBuffer ints = buffer.position(HEADER_BYTES).slice().asIntBuffer();
+        nodeMasks = ints.slice(0, nodeCount);
+        firstEdges = ints.slice(nodeCount, nodeCount);
+        edgeTargets = ints.slice(2 * nodeCount, edgeCount);
+    }
+
+    /**
+     * Maps a compiled dictionary file and checks its format version and checksum.
+     *
+     * @param file the compiled dictionary file.
+     * @return the lexicon backed by the file.
+     * @throws IOException if the file cannot be read, or is not a valid dictionary file.
+     */
+    public static MappedLexicon open(File file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Dictionary file is too short: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a dictionary file: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported dictionary version " + buffer.getInt(4) + ": " + file);
+        }
+        long nodeCount = buffer.getInt(12);
+        long edgeCount = buffer.getInt(16);
+        if (nodeCount < 1 || edgeCount < 0 || buffer.capacity() != HEADER_BYTES + 4 * (2 * nodeCount + edgeCount)) {
+            throw new IOException("Dictionary file is truncated: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(HEADER_BYTES));
+        if ((int) crc.getValue() != buffer.getInt(20)) {
+            throw new IOException("Dictionary file checksum does not match: " + file);
+        }
+        return new MappedLexicon(buffer);
+    }
+
+    @Override
+    public int root() {
+        return 0;
+    }
+
+    @Override
+    public int child(int node, char letter) {
+        int i = Lexicon.letterIndex(letter);
+        if (i < 0) {
+            return NONE;
+        }
+        int bit = 1 << i;
+        int mask = nodeMasks.get(node);
+        if ((mask & bit) == 0) {
+            return NONE;
+        }
+        return edgeTargets.get(firstEdges.get(node) + Integer.bitCount(mask & (bit - 1)));
+    }
+
+    @Override
+    public boolean isTerminal(int node) {
+        return (nodeMasks.get(node) & Dawg.TERMINAL) != 0;
+    }
+
+    @Override
+    public int childMask(int node) {
+        return nodeMasks.get(node) & Dawg.LETTERS;
+    }
+
+    @Override
+    public int wordCount() {
+        return wordCount;
+    }
+}
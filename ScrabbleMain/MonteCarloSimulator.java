@@ -0,0 +1,271 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates candidate moves by simulation. Each playout makes the candidate on a copy of the board,
+ * gives the opponent a random hand drawn from the unseen tiles, refills the mover's hand from what is left,
+ * and has both sides play their top scoring move for a few plies.
+ * Playouts are shared round-robin between the candidates and run on a pool of worker threads;
+ * each worker keeps its own random generator and running totals, which are merged at the end.
+ */
+public class MonteCarloSimulator {
+    private final Lexicon lexicon;
+    private final int workers;
+    private final ExecutorService pool;
+    private final SplittableRandom seeds;
+
+    /**
+     * Constructor for the MonteCarloSimulator class.
+     *
+     * @param lexicon the lexicon moves must be valid in
+     * @param workers the number of worker threads
+     * @param seed the seed for the playouts' random generators
+     */
+    public MonteCarloSimulator(Lexicon lexicon, int workers, long seed) {
+        this.lexicon = lexicon;
+        this.workers = workers;
+        this.seeds = new SplittableRandom(seed);
+        this.pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "simulation-worker");
+            thread.setDaemon(true); // Never keep the game running
+            return thread;
+        });
+    }
+
+    public Lexicon getLexicon() {
+        return lexicon;
+    }
+
+    /**
+     * Stops the worker threads once any running simulation has finished.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * The results of one simulation run.
+     */
+    public static class Report {
+        private final List<SimulationResult> results;
+        private final long iterations;
+        private final double simulationsPerSecond;
+
+        Report(List<SimulationResult> results, long iterations, double simulationsPerSecond) {
+            this.results = results;
+            this.iterations = iterations;
+            this.simulationsPerSecond = simulationsPerSecond;
+        }
+
+        /**
+         * Returns the result of each candidate, best mean first, then any candidates without playouts.
+         *
+         * @return the results
+         */
+        public List<SimulationResult> getResults() {
+            return results;
+        }
+
+        public long getIterations() {
+            return iterations;
+        }
+
+        public double getSimulationsPerSecond() {
+            return simulationsPerSecond;
+        }
+    }
+
+    /**
+     * Simulates candidate moves for the current player of a game.
+     *
+     * @param model the game being played
+     * @param candidates the moves to compare
+     * @param plies the number of replies to play out after each candidate (opponent first)
+     * @param iterations the most playouts to run in total
+     * @param deadline the System.nanoTime() value at which to stop
+     * @return the report, with results sorted from best to worst mean
+     */
+    public Report simulate(ScrabbleModel model, List<Move> candidates, int plies, int iterations, long deadline) {
+        return simulate(model.getState(), candidates, plies, iterations, deadline);
+    }
+
+    /**
+     * Simulates candidate moves for the player to move in a game state.
+     * The state is only read, so the game it came from may go on while the simulation runs.
+     *
+     * @param state the position before the candidates
+     * @param candidates the moves to compare
+     * @param plies the number of replies to play out after each candidate (opponent first)
+     * @param iterations the most playouts to run in total
+     * @param deadline the System.nanoTime() value at which to stop
+     * @return the report, with results sorted from best to worst mean
+     */
+    public Report simulate(GameState state, List<Move> candidates, int plies, int iterations, long deadline) {
+        int mover = state.getCurrentPlayer();
+        return simulate(state.toBoard(), state.getRack(mover), state.getUnseenCounts(mover), candidates, plies,
+                iterations, deadline);
+    }
+
+    /**
+     * Simulates candidate moves from a position.
+     *
+     * @param board the board before the candidates
+     * @param hand the mover's tile counts, with blanks at index 26
+     * @param unseen the counts of the tiles the mover cannot see
+     * @param candidates the moves to compare
+     * @param plies the number of replies to play out after each candidate (opponent first)
+     * @param iterations the most playouts to run in total
+     * @param deadline the System.nanoTime() value at which to stop
+     * @return the report, with results sorted from best to worst mean
+     */
+    public Report simulate(Board board, int[] hand, int[] unseen, List<Move> candidates, int plies,
+                           int iterations, long deadline) {
+        long start = System.nanoTime();
+        Board base = new Board(board);
+        base.refreshCrossChecks(lexicon); // Copies start clean, and the shared base is only read
+
+        AtomicInteger next = new AtomicInteger();
+        List<Future<double[][]>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            SplittableRandom random;
+            synchronized (seeds) {
+                random = seeds.split();
+            }
+            Callable<double[][]> worker = () -> {
+                // Count, sum and sum of squares of the playout values for each candidate
+                double[][] totals = new double[candidates.size()][3];
+                MoveGenerator generator = new MoveGenerator(lexicon);
+                int i;
+                while (System.nanoTime() < deadline && (i = next.getAndIncrement()) < iterations) {
+                    int c = i % candidates.size();
+                    double value = playout(generator, base, hand, unseen, candidates.get(c), plies, random, deadline);
+                    if (Double.isNaN(value)) {
+                        break;
+                    }
+                    totals[c][0]++;
+                    totals[c][1] += value;
+                    totals[c][2] += value * value;
+                }
+                return totals;
+            };
+            futures.add(pool.submit(worker));
+        }
+
+        double[][] totals = new double[candidates.size()][3];
+        for (Future<double[][]> future : futures) {
+            try {
+                double[][] part = future.get();
+                for (int c = 0; c < totals.length; c++) {
+                    for (int k = 0; k < 3; k++) {
+                        totals[c][k] += part[c][k];
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Simulation failed", e.getCause());
+            }
+        }
+
+        List<SimulationResult> results = new ArrayList<>();
+        long count = 0;
+        for (int c = 0; c < totals.length; c++) {
+            int n = (int) totals[c][0];
+            double mean = n == 0 ? Double.NaN : totals[c][1] / n;
+            double variance = n < 2 ? 0 : Math.max(0, (totals[c][2] - n * mean * mean) / (n - 1));
+            results.add(new SimulationResult(candidates.get(c), n, mean, Math.sqrt(variance)));
+            count += n;
+        }
+        // A candidate the deadline left without playouts has no mean to compare, so it goes last
+        results.sort(Comparator.comparing((SimulationResult result) -> result.getIterations() == 0)
+                .thenComparing(Comparator.comparingDouble(SimulationResult::getMean).reversed()));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Report(results, count, seconds > 0 ? count / seconds : 0);
+    }
+
+    /**
+     * Plays out one candidate and returns its score plus the points gained over the opponent afterwards.
+     * A playout cut short by the deadline returns NaN, so that it is not counted.
+     */
+    private double playout(MoveGenerator generator, Board base, int[] hand, int[] unseen, Move candidate,
+                           int plies, SplittableRandom random, long deadline) {
+        Board board = new Board(base);
+        int[] pool = unseen.clone();
+        int[] own = hand.clone();
+        int[] opponent = new int[27];
+        draw(pool, opponent, 7, random);
+        play(board, candidate, own);
+        draw(pool, own, candidate.getTilesPlayed(), random);
+
+        double value = candidate.getScore();
+        boolean opponentTurn = true;
+        for (int ply = 0; ply < plies; ply++) {
+            int[] rack = opponentTurn ? opponent : own;
+            List<Move> reply = generator.generateTop(board, rack, 1, false, deadline);
+            if (System.nanoTime() >= deadline) {
+                return Double.NaN;
+            }
+            if (!reply.isEmpty()) {
+                Move move = reply.get(0);
+                play(board, move, rack);
+                draw(pool, rack, move.getTilesPlayed(), random);
+                value += opponentTurn ? -move.getScore() : move.getScore();
+            }
+            opponentTurn = !opponentTurn;
+        }
+        return value;
+    }
+
+    /**
+     * Places a move's new tiles on a board and takes them out of a hand.
+     *
+     * @param board the board to play on
+     * @param move the move to make
+     * @param rack the tile counts of the hand the move is played from
+     */
+    static void play(Board board, Move move, int[] rack) {
+        String letters = move.getLetters();
+        for (int i = 0; i < letters.length(); i++) {
+            int xIndex = move.getDirection() == 'D' ? move.getX() : move.getX() + i;
+            int yIndex = move.getDirection() == 'D' ? move.getY() + i : move.getY();
+            if (board.isEmpty(xIndex, yIndex)) {
+                Tile tile = new Tile(move.isBlank(i) ? ' ' : letters.charAt(i));
+                tile.setTileChar(letters.charAt(i));
+                board.addLetter(xIndex, yIndex, tile);
+                rack[move.isBlank(i) ? MoveGenerator.BLANK : letters.charAt(i) - 'a']--;
+            }
+        }
+    }
+
+    /**
+     * Moves up to a number of tiles, chosen at random, from a pool to a hand.
+     *
+     * @param pool the tile counts to draw from
+     * @param rack the tile counts to add to
+     * @param count the number of tiles to draw
+     * @param random the random generator to use
+     */
+    static void draw(int[] pool, int[] rack, int count, SplittableRandom random) {
+        int total = 0;
+        for (int n : pool) {
+            total += n;
+        }
+        for (; count > 0 && total > 0; count--, total--) {
+            int pick = random.nextInt(total);
+            int i = 0;
+            while (pick >= pool[i]) {
+                pick -= pool[i++];
+            }
+            pool[i]--;
+            rack[i]++;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable candidate move: a full word laid along one line of the board, and the score it earns.
+ * Letters are kept as a string so that a generator can produce thousands of moves cheaply;
+ * toTiles builds the tile list that ScrabbleModel.makeMove expects.
+ */
+public class Move {
+    /** Orders moves from highest to lowest score. */
+    public static final Comparator<Move> BY_SCORE = Comparator.comparingInt(Move::getScore).reversed();
+
+    private final int x;
+    private final int y;
+    private final char direction;
+    private final String letters;
+    private final int blankMask;
+    private final int score;
+    private final int tilesPlayed;
+
+    /**
+     * Constructor for the Move class.
+     *
+     * @param x the x-coordinate of the first letter of the word.
+     * @param y the y-coordinate of the first letter of the word.
+     * @param direction the direction of the word ('D' for down, 'R' for right).
+     * @param letters the full word, including letters already on the board.
+     * @param blankMask one bit per letter of the word, set where a blank tile from the hand is played.
+     * @param score the points the move earns.
+     * @param tilesPlayed the number of tiles the move takes from the hand.
+     */
+    public Move(int x, int y, char direction, String letters, int blankMask, int score, int tilesPlayed) {
+        this.x = x;
+        this.y = y;
+        this.direction = direction;
+        this.letters = letters;
+        this.blankMask = blankMask;
+        this.score = score;
+        this.tilesPlayed = tilesPlayed;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public char getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns the full word formed along the move's line, in lowercase.
+     *
+     * @return the word.
+     */
+    public String getLetters() {
+        return letters;
+    }
+
+    /**
+     * Checks if the letter at an index of the word is played with a blank tile.
+     *
+     * @param index the index of the letter in the word.
+     * @return true if a blank from the hand is played there, false otherwise.
+     */
+    public boolean isBlank(int index) {
+        return (blankMask & (1 << index)) != 0;
+    }
+
+    public int getBlankMask() {
+        return blankMask;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getTilesPlayed() {
+        return tilesPlayed;
+    }
+
+    /**
+     * Builds the tiles of the word, reusing the board's tiles on occupied squares and new tiles elsewhere.
+     * Blanks are returned as blank tiles already set to the letter they stand for.
+     *
+     * @param board the board the move is played on.
+     * @return the word as a list of tiles.
+     */
+    public List<Tile> toTiles(Board board) {
+        List<Tile> word = new ArrayList<>(letters.length());
+        for (int i = 0; i < letters.length(); i++) {
+            int xIndex = direction == 'D' ? x : x + i;
+            int yIndex = direction == 'D' ? y + i : y;
+            if (!board.isEmpty(xIndex, yIndex)) {
+                word.add(board.getTile(xIndex, yIndex));
+            } else if (isBlank(i)) {
+                Tile tile = new Tile(' ');
+                tile.setTileChar(letters.charAt(i));
+                word.add(tile);
+            } else {
+                word.add(new Tile(letters.charAt(i)));
+            }
+        }
+        return word;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < letters.length(); i++) {
+            // Blanks are shown in lowercase, as on a score sheet
+            word.append(isBlank(i) ? letters.charAt(i) : Character.toUpperCase(letters.charAt(i)));
+        }
+        return word + " at " + x + ", " + y + " " + direction + " (" + score + ")";
+    }
+}
@@ -0,0 +1,447 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Generates every legal move for a hand on a board, using the Appel-Jacobson algorithm over a DAWG lexicon.
+ *
+ * Each line of the board (15 rows for 'R' moves, 15 columns for 'D' moves) is searched from its anchors,
+ * the empty squares next to a placed tile (or the center square on an empty board). A left part is grown
+ * into the empty squares before an anchor, then extended rightwards through the anchor, only trying letters
+ * that are in the hand and in the square's cross-check set, so every word found is valid in both directions.
+ */
+public class MoveGenerator {
+    static final int SIZE = 15;
+    static final int BLANK = 26;
+    static final int DEADLINE_CHECK = 1024; // Search steps between readings of the clock, a power of two
+
+    private final Lexicon lexicon;
+
+    /**
+     * Constructor for the MoveGenerator class.
+     *
+     * @param lexicon the lexicon the moves must be valid in.
+     */
+    public MoveGenerator(Lexicon lexicon) {
+        this.lexicon = lexicon;
+    }
+
+    /**
+     * Generates every legal move for a player's hand.
+     *
+     * @param board the board to play on.
+     * @param player the player whose hand is used.
+     * @return all legal moves with their scores, rows first then columns.
+     */
+    public List<Move> generate(Board board, Player player) {
+        return generate(board, player.getHand());
+    }
+
+    /**
+     * Generates every legal move for a hand.
+     *
+     * @param board the board to play on.
+     * @param hand the tiles available to play.
+     * @return all legal moves with their scores, rows first then columns.
+     */
+    public List<Move> generate(Board board, List<Tile> hand) {
+        Position position = new Position(board, lexicon);
+        int[] counts = countTiles(hand);
+        List<Move> moves = new ArrayList<>();
+        for (int line = 0; line < 2 * SIZE; line++) {
+            new LineSearch(position, lexicon, counts, line).run(moves);
+        }
+        return moves;
+    }
+
+    /**
+     * Generates the highest scoring legal moves for a hand.
+     * The parallel mode searches each row and column as a fork/join task and merges the per-task results;
+     * both modes return exactly the same list.
+     *
+     * @param board the board to play on.
+     * @param hand the tiles available to play.
+     * @param n the maximum number of moves to return.
+     * @param parallel true to search the lines on the common fork/join pool, false to search them in turn.
+     * @return up to n moves, highest score first; ties keep generation order (rows first then columns).
+     */
+    public List<Move> generateTop(Board board, List<Tile> hand, int n, boolean parallel) {
+        return generateTop(board, hand, n, parallel, Long.MAX_VALUE);
+    }
+
+    /**
+     * Generates the highest scoring legal moves for a hand, stopping at a deadline.
+     * The clock is read every DEADLINE_CHECK search steps, so the search stops within that many steps
+     * (well under a millisecond) of the deadline, and the result holds the best moves found by then.
+     *
+     * @param board the board to play on.
+     * @param hand the tiles available to play.
+     * @param n the maximum number of moves to return.
+     * @param parallel true to search the lines on the common fork/join pool, false to search them in turn.
+     * @param deadline the System.nanoTime() value at which to stop searching.
+     * @return up to n moves, highest score first; ties keep generation order (rows first then columns).
+     */
+    public List<Move> generateTop(Board board, List<Tile> hand, int n, boolean parallel, long deadline) {
+        return generateTop(board, countTiles(hand), n, parallel, deadline);
+    }
+
+    /**
+     * Generates the highest scoring legal moves for a hand given as tile counts, stopping at a deadline.
+     *
+     * @param board the board to play on.
+     * @param counts the count of each letter in the hand, with blanks at index BLANK.
+     * @param n the maximum number of moves to return.
+     * @param parallel true to search the lines on the common fork/join pool, false to search them in turn.
+     * @param deadline the System.nanoTime() value at which to stop searching.
+     * @return up to n moves, highest score first; ties keep generation order (rows first then columns).
+     */
+    List<Move> generateTop(Board board, int[] counts, int n, boolean parallel, long deadline) {
+        // Build the position first, since reading the board's cross-checks may update them
+        Position position = new Position(board, lexicon);
+        position.deadline = deadline;
+        if (parallel) {
+            return ForkJoinPool.commonPool().invoke(new LinesTask(position, counts, n, 0, 2 * SIZE));
+        }
+        List<Move> best = new ArrayList<>();
+        for (int line = 0; line < 2 * SIZE; line++) {
+            best = mergeTop(best, searchLine(position, counts, n, line), n);
+        }
+        return best;
+    }
+
+    /**
+     * Searches one line and keeps its best n moves.
+     */
+    private List<Move> searchLine(Position position, int[] counts, int n, int line) {
+        List<Move> moves = new ArrayList<>();
+        new LineSearch(position, lexicon, counts, line).run(moves);
+        moves.sort(Move.BY_SCORE);
+        return moves.size() > n ? new ArrayList<>(moves.subList(0, n)) : moves;
+    }
+
+    /**
+     * Merges two best-first lists, earlier lines first, keeping the best n moves.
+     * Since the sort is stable, merging in line order gives the same result however the lines were grouped.
+     */
+    private static List<Move> mergeTop(List<Move> first, List<Move> second, int n) {
+        List<Move> merged = new ArrayList<>(first.size() + second.size());
+        merged.addAll(first);
+        merged.addAll(second);
+        merged.sort(Move.BY_SCORE);
+        return merged.size() > n ? new ArrayList<>(merged.subList(0, n)) : merged;
+    }
+
+    /**
+     * A fork/join task searching a range of lines, splitting until each task holds a single line.
+     */
+    private class LinesTask extends RecursiveTask<List<Move>> {
+        private final Position position;
+        private final int[] counts;
+        private final int n;
+        private final int from;
+        private final int to;
+
+        LinesTask(Position position, int[] counts, int n, int from, int to) {
+            this.position = position;
+            this.counts = counts;
+            this.n = n;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Move> compute() {
+            if (to - from == 1) {
+                return searchLine(position, counts, n, from);
+            }
+            int middle = (from + to) / 2;
+            LinesTask left = new LinesTask(position, counts, n, from, middle);
+            left.fork();
+            List<Move> right = new LinesTask(position, counts, n, middle, to).compute();
+            return mergeTop(left.join(), right, n);
+        }
+    }
+
+    /**
+     * Counts the tiles of a hand by letter, with blanks counted at index BLANK.
+     *
+     * @param hand the tiles to count.
+     * @return the count of each letter.
+     */
+    static int[] countTiles(List<Tile> hand) {
+        if (hand instanceof Rack rack) {
+            return rack.getCounts();
+        }
+        int[] counts = new int[27];
+        for (int i = 0; i < hand.size(); i++) {
+            Tile tile = hand.get(i);
+            if (tile.isBlank()) {
+                counts[BLANK]++;
+            } else {
+                counts[tile.getTileChar() - 'a']++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * A read-only snapshot of the board prepared for generation: letters, premium squares,
+     * anchors, and for each direction the cross-check letter set and cross-word score of every square.
+     * Anchors and cross-checks are maintained incrementally by the Board; only the squares changed
+     * since the last generation are recomputed. Squares are indexed x * SIZE + y.
+     */
+    static class Position {
+        final char[] letters = new char[SIZE * SIZE]; // 0 for an empty square
+        final int[] letterScores = new int[BLANK + 1]; // From the board's tile set, blanks at BLANK
+        final int[] tileScores = new int[SIZE * SIZE];
+        final int[] letterMultipliers = new int[SIZE * SIZE];
+        final int[] wordMultipliers = new int[SIZE * SIZE];
+        final boolean[] anchors = new boolean[SIZE * SIZE];
+        final int[][] crossChecks = new int[2][SIZE * SIZE];
+        final int[][] crossScores = new int[2][SIZE * SIZE]; // -1 where no cross-word is formed
+        long deadline = Long.MAX_VALUE; // System.nanoTime() value after which the search stops
+
+        Position(Board board, Lexicon lexicon) {
+            for (int i = 0; i <= BLANK; i++) {
+                letterScores[i] = board.getTileSet().getScore(i);
+            }
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    int cell = x * SIZE + y;
+                    letters[cell] = board.getLetter(x, y);
+                    tileScores[cell] = board.getTileScore(x, y);
+                    Premium premium = board.getPremium(x, y);
+                    letterMultipliers[cell] = premium.getLetterMultiplier();
+                    wordMultipliers[cell] = premium.getWordMultiplier();
+                }
+            }
+
+            for (int x = 0; x < SIZE; x++) {
+                for (int y = 0; y < SIZE; y++) {
+                    int cell = x * SIZE + y;
+                    if (letters[cell] != 0) {
+                        continue;
+                    }
+                    anchors[cell] = board.isAnchor(x, y);
+                    crossChecks[0][cell] = board.getCrossCheck(lexicon, 'R', x, y);
+                    crossChecks[1][cell] = board.getCrossCheck(lexicon, 'D', x, y);
+                    crossScores[0][cell] = board.getCrossScore(lexicon, 'R', x, y);
+                    crossScores[1][cell] = board.getCrossScore(lexicon, 'D', x, y);
+                }
+            }
+            if (board.getTileCount() == 0) {
+                anchors[7 * SIZE + 7] = true; // The first move must cover the center square
+            }
+        }
+    }
+
+    /**
+     * The search of a single line of the board. Holds its own copy of the hand counts and word buffer,
+     * so separate lines can be searched independently.
+     */
+    static class LineSearch {
+        private final Position position;
+        private final Lexicon lexicon;
+        private final int[] counts;
+        private final int dir;   // 0 for a row ('R' moves), 1 for a column ('D' moves)
+        private final int line;
+        private final char[] word = new char[SIZE];
+        private final boolean[] blanks = new boolean[SIZE];
+        private final char[] prefix = new char[SIZE];
+        private final boolean[] prefixBlanks = new boolean[SIZE];
+        private int anchor;
+        private int start;
+        private List<Move> out;
+        private int steps;
+        private boolean stopped; // Set once the deadline has passed
+
+        LineSearch(Position position, Lexicon lexicon, int[] counts, int line) {
+            this.position = position;
+            this.lexicon = lexicon;
+            this.counts = counts.clone();
+            this.dir = line < SIZE ? 0 : 1;
+            this.line = line % SIZE;
+        }
+
+        /** Returns the square index of a position along the line. */
+        private int cell(int i) {
+            return dir == 0 ? i * SIZE + line : line * SIZE + i;
+        }
+
+        /**
+         * Searches the line and adds every legal move found to a list.
+         *
+         * @param out the list to add moves to.
+         */
+        void run(List<Move> out) {
+            this.out = out;
+            int tilesInHand = 0;
+            for (int count : counts) {
+                tilesInHand += count;
+            }
+            int previousAnchor = -1;
+            for (int a = 0; a < SIZE; a++) {
+                if (!position.anchors[cell(a)]) {
+                    continue;
+                }
+                if (position.deadline != Long.MAX_VALUE && System.nanoTime() >= position.deadline) {
+                    stopped = true;
+                }
+                if (stopped) {
+                    return;
+                }
+                anchor = a;
+                if (a > 0 && position.letters[cell(a - 1)] != 0) {
+                    // The left part is the tiles already on the board
+                    start = a - 1;
+                    while (start > 0 && position.letters[cell(start - 1)] != 0) {
+                        start--;
+                    }
+                    int node = lexicon.root();
+                    for (int i = start; i < a && node != Lexicon.NONE; i++) {
+                        word[i] = position.letters[cell(i)];
+                        blanks[i] = false;
+                        node = lexicon.child(node, word[i]);
+                    }
+                    if (node != Lexicon.NONE) {
+                        extendRight(node, a);
+                    }
+                } else {
+                    // The left part is built from the hand in the empty squares since the previous anchor
+                    int limit = Math.min(a - previousAnchor - 1, tilesInHand - 1);
+                    leftPart(lexicon.root(), 0, limit);
+                }
+                previousAnchor = a;
+            }
+        }
+
+        /**
+         * Counts a step of the search, reading the clock every DEADLINE_CHECK steps.
+         *
+         * @return true if the deadline has passed and the search should unwind.
+         */
+        private boolean expired() {
+            if (!stopped && (++steps & (DEADLINE_CHECK - 1)) == 0 && position.deadline != Long.MAX_VALUE) {
+                stopped = System.nanoTime() >= position.deadline;
+            }
+            return stopped;
+        }
+
+        private void leftPart(int node, int length, int limit) {
+            if (expired()) {
+                return;
+            }
+            start = anchor - length;
+            for (int i = 0; i < length; i++) {
+                word[start + i] = prefix[i];
+                blanks[start + i] = prefixBlanks[i];
+            }
+            extendRight(node, anchor);
+            if (limit == 0) {
+                return;
+            }
+            for (int letters = lexicon.childMask(node); letters != 0; letters &= letters - 1) {
+                int l = Integer.numberOfTrailingZeros(letters);
+                char letter = (char) ('a' + l);
+                if (counts[l] > 0) {
+                    counts[l]--;
+                    prefix[length] = letter;
+                    prefixBlanks[length] = false;
+                    leftPart(lexicon.child(node, letter), length + 1, limit - 1);
+                    counts[l]++;
+                }
+                if (counts[BLANK] > 0) {
+                    counts[BLANK]--;
+                    prefix[length] = letter;
+                    prefixBlanks[length] = true;
+                    leftPart(lexicon.child(node, letter), length + 1, limit - 1);
+                    counts[BLANK]++;
+                }
+            }
+        }
+
+        private void extendRight(int node, int pos) {
+            if (expired()) {
+                return;
+            }
+            if (pos < SIZE && position.letters[cell(pos)] != 0) {
+                char letter = position.letters[cell(pos)];
+                int next = lexicon.child(node, letter);
+                if (next != Lexicon.NONE) {
+                    word[pos] = letter;
+                    blanks[pos] = false;
+                    extendRight(next, pos + 1);
+                }
+                return;
+            }
+            if (pos > anchor && pos - start > 1 && lexicon.isTerminal(node)) {
+                record(pos);
+            }
+            if (pos == SIZE) {
+                return;
+            }
+            int cell = cell(pos);
+            for (int letters = lexicon.childMask(node) & position.crossChecks[dir][cell]; letters != 0;
+                 letters &= letters - 1) {
+                int l = Integer.numberOfTrailingZeros(letters);
+                char letter = (char) ('a' + l);
+                if (counts[l] > 0) {
+                    counts[l]--;
+                    word[pos] = letter;
+                    blanks[pos] = false;
+                    extendRight(lexicon.child(node, letter), pos + 1);
+                    counts[l]++;
+                }
+                if (counts[BLANK] > 0) {
+                    counts[BLANK]--;
+                    word[pos] = letter;
+                    blanks[pos] = true;
+                    extendRight(lexicon.child(node, letter), pos + 1);
+                    counts[BLANK]++;
+                }
+            }
+        }
+
+        /**
+         * Scores the word from start up to (not including) end and adds it as a move.
+         * Scoring matches ScrabbleModel.makeMove: premiums only count for newly placed tiles.
+         */
+        private void record(int end) {
+            int mainScore = 0;
+            int wordMultiplier = 1;
+            int crossTotal = 0;
+            int tilesPlayed = 0;
+            int playedCell = -1;
+            int blankMask = 0;
+            for (int pos = start; pos < end; pos++) {
+                int cell = cell(pos);
+                if (position.letters[cell] != 0) {
+                    mainScore += position.tileScores[cell];
+                    continue;
+                }
+                tilesPlayed++;
+                playedCell = cell;
+                int letterScore = position.letterScores[blanks[pos] ? BLANK : word[pos] - 'a'];
+                if (blanks[pos]) {
+                    blankMask |= 1 << (pos - start);
+                }
+                int letterMultiplier = position.letterMultipliers[cell];
+                int multiplier = position.wordMultipliers[cell];
+                mainScore += letterScore * letterMultiplier;
+                wordMultiplier *= multiplier;
+                int crossScore = position.crossScores[dir][cell];
+                if (crossScore >= 0) {
+                    crossTotal += (crossScore + letterScore * letterMultiplier) * multiplier;
+                }
+            }
+            if (dir == 1 && tilesPlayed == 1 && position.crossScores[1][playedCell] >= 0) {
+                return; // One tile that also makes a word across is the same placement as the row's move
+            }
+            int x = dir == 0 ? start : line;
+            int y = dir == 0 ? line : start;
+            out.add(new Move(x, y, dir == 0 ? 'R' : 'D', new String(word, start, end - start), blankMask,
+                    mainScore * wordMultiplier + crossTotal, tilesPlayed));
+        }
+    }
+}
@@ -0,0 +1,457 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * The journal of one game, from which the game can be rebuilt after a crash, and which is kept once the
+ * game is over so any earlier position can be rebuilt too.
+ *
+ * The journal starts with a checkpoint, a full SaveFormat save of the game, and then records every move and
+ * skip as it is committed. A move is replayed through ScrabbleModel.makeMove, which draws the same tiles
+ * from the saved bag, so a few bytes per move are enough. Steps that cannot be replayed that way, such as
+ * undo, reset or a change of layout, are written as a new checkpoint, and a checkpoint is also written every
+ * so many moves.
+ *
+ * Each checkpoint compacts the journal: the records since the last checkpoint are appended to the game's
+ * history file, followed by the new checkpoint, and the journal is rewritten as that checkpoint alone.
+ * Opening or replaying the journal so only reads a checkpoint and at most an interval of moves, while the
+ * history holds the first checkpoint and every record after it. The journal's header holds the length of
+ * history its records follow, so a compaction cut short by a crash is redone over the same bytes.
+ *
+ * Records are framed as a type byte, a payload length, the payload and a CRC32 of the type and payload.
+ * A record torn by a crash fails its check; replay stops before it and reopening the journal cuts it off.
+ * Records are written in batches, and each batch is forced to disk if the journal syncs.
+ *
+ * Layout of the journal and of the history, all numbers big-endian:
+ * <pre>
+ * int     MAGIC
+ * short   VERSION
+ * long    length of the history the records follow (version 2 on, 0 in the history itself)
+ * then per record: byte type, int payload length, payload, int CRC32
+ * </pre>
+ */
+public class MoveJournal implements Closeable {
+    /** The first bytes of every journal: "SCRJ". */
+    public static final int MAGIC = 0x5343524A;
+    /** The version written; readers accept this version and older ones. */
+    public static final short VERSION = 2;
+    /** The default number of moves between checkpoints. */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 32;
+
+    static final int CHECKPOINT = 1;
+    static final int MOVE = 2;
+    static final int SKIP = 3;
+
+    private static final int HEADER_SIZE = 14;
+    private static final int MAX_RECORD = 1 << 16;
+
+    private final File file;
+    private final File history;
+    private FileChannel channel; // Reopened each time the journal is compacted
+    private long archived; // The length of the history the records in the journal follow
+    private long tail; // The offset of the first record not yet in the history
+    private final int batchSize;
+    private final boolean sync;
+    private final int checkpointInterval;
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    private int pending;
+    private int sinceCheckpoint;
+
+    /**
+     * Opens a journal for appending, creating it if it does not exist and cutting off any torn records.
+     * A journal must be given a checkpoint, through ScrabbleModel.setJournal, before moves are written to it.
+     *
+     * @param file the journal file; its history is kept next to it, in the file named by historyFile.
+     * @param batchSize the number of records to hold before writing them, 1 to write each at once.
+     * @param sync true to force each batch to disk before going on.
+     * @param checkpointInterval the number of moves and skips between checkpoints.
+     * @throws IOException if the file cannot be opened or is not a journal.
+     */
+    public MoveJournal(File file, int batchSize, boolean sync, int checkpointInterval) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        this.file = file;
+        this.history = historyFile(file);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.batchSize = Math.max(1, batchSize);
+        this.sync = sync;
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+        try {
+            if (channel.size() == 0) {
+                channel.write(ByteBuffer.wrap(header(0)));
+                tail = HEADER_SIZE;
+            } else {
+                Scan scan = scan(readAll(channel));
+                channel.truncate(scan.end);
+                archived = scan.archived;
+                tail = scan.tail;
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a journal that writes and syncs every record, as a game played by people needs.
+     *
+     * @param file the journal file.
+     * @throws IOException if the file cannot be opened or is not a journal.
+     */
+    public MoveJournal(File file) throws IOException {
+        this(file, 1, true, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Names the file the history of a journal is kept in.
+     *
+     * @param file the journal file.
+     * @return the history file, next to the journal.
+     */
+    public static File historyFile(File file) {
+        return new File(file.getPath() + ".history");
+    }
+
+    /**
+     * Writes a checkpoint of a game, moving the records before it to the history.
+     * If the journal cannot be compacted, the checkpoint is appended to it instead.
+     *
+     * @param model the game.
+     */
+    public void checkpoint(ScrabbleModel model) {
+        byte[] record = frame(CHECKPOINT, SaveFormat.toBytes(model));
+        flush();
+        try {
+            compact(record);
+        } catch (IOException e) {
+            System.out.println("Error compacting move journal:" + e.getMessage());
+            batch.writeBytes(record);
+            pending++;
+            flush();
+        }
+        sinceCheckpoint = 0;
+    }
+
+    /**
+     * Appends the records not yet in the history to it, followed by a checkpoint,
+     * then replaces the journal with the checkpoint alone.
+     *
+     * @param checkpoint the framed checkpoint record.
+     * @throws IOException if either file cannot be written, in which case the journal is left as it was.
+     */
+    private void compact(byte[] checkpoint) throws IOException {
+        ByteBuffer records = ByteBuffer.allocate((int) (channel.size() - tail));
+        channel.position(tail);
+        while (records.hasRemaining() && channel.read(records) >= 0) {
+            // Keep reading until the whole tail is in
+        }
+        channel.position(channel.size());
+        long length;
+        try (FileChannel out = FileChannel.open(history.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (out.size() == 0) {
+                out.write(ByteBuffer.wrap(header(0)));
+            } else if (out.size() > archived) {
+                out.truncate(Math.max(archived, HEADER_SIZE)); // Drop what a compaction cut short left behind
+            }
+            out.position(out.size());
+            records.flip();
+            for (ByteBuffer buffer : new ByteBuffer[]{records, ByteBuffer.wrap(checkpoint)}) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            out.force(false); // The history must hold the records before the journal lets them go
+            length = out.size();
+        }
+        ByteBuffer compacted = ByteBuffer.allocate(HEADER_SIZE + checkpoint.length).put(header(length)).put(checkpoint);
+        channel.close();
+        try {
+            SaveWriter.write(file.toPath(), compacted.array());
+            archived = length;
+            tail = compacted.capacity();
+        } finally {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+    }
+
+    private static byte[] header(long archived) {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putShort(VERSION).putLong(archived).array();
+    }
+
+    /**
+     * Records a move that has just been committed.
+     *
+     * @param model the game, after the move.
+     * @param result the move.
+     */
+    public void move(ScrabbleModel model, MoveResult result) {
+        List<Tile> word = result.getWord();
+        byte[] payload = new byte[4 + word.size()];
+        payload[0] = (byte) result.getX();
+        payload[1] = (byte) result.getY();
+        payload[2] = (byte) result.getDirection();
+        payload[3] = (byte) word.size();
+        for (int i = 0; i < word.size(); i++) {
+            payload[4 + i] = (byte) SaveFormat.encode(word.get(i));
+        }
+        append(MOVE, payload);
+        countStep(model);
+    }
+
+    /**
+     * Records a skipped turn.
+     *
+     * @param model the game, after the skip.
+     */
+    public void skip(ScrabbleModel model) {
+        append(SKIP, new byte[0]);
+        countStep(model);
+    }
+
+    private void countStep(ScrabbleModel model) {
+        if (++sinceCheckpoint >= checkpointInterval) {
+            checkpoint(model);
+        }
+    }
+
+    private void append(int type, byte[] payload) {
+        batch.writeBytes(frame(type, payload));
+        if (++pending >= batchSize) {
+            flush();
+        }
+    }
+
+    private static byte[] frame(int type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return ByteBuffer.allocate(9 + payload.length).put((byte) type).putInt(payload.length).put(payload)
+                .putInt((int) crc.getValue()).array();
+    }
+
+    /**
+     * Writes the records held in the current batch, forcing them to disk if the journal syncs.
+     */
+    public void flush() {
+        if (pending == 0) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing move journal:" + e.getMessage());
+        }
+        batch.reset();
+        pending = 0;
+    }
+
+    /**
+     * Writes any records still held and closes the journal.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Checks if a journal has a checkpoint to replay.
+     *
+     * @param file the journal file.
+     * @return true if the file is a journal with at least one whole checkpoint.
+     */
+    public static boolean canReplay(File file) {
+        try {
+            return file.length() > 0 && scan(Files.readAllBytes(file.toPath())).checkpoint >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Rebuilds a game from its journal: the last checkpoint, then every move and skip after it.
+     * Records after the last whole one are ignored.
+     *
+     * @param file the journal file.
+     * @return the game, with no view, no journal and an empty undo history.
+     * @throws IOException if the file cannot be read, has no checkpoint, or holds a move that cannot be played.
+     */
+    public static ScrabbleModel replay(File file) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        Scan scan = scan(data);
+        if (scan.checkpoint < 0) {
+            throw new IOException("The journal has no checkpoint");
+        }
+        return replay(data, scan.checkpoint, scan.end, null, model -> { });
+    }
+
+    /**
+     * Rebuilds a game as it stood after a number of turns, replaying its history and then its journal
+     * from the first checkpoint. If undo took the game back past that turn, the position it was last
+     * left in at that turn is returned.
+     *
+     * @param file the journal file.
+     * @param turn the number of turns played, as ScrabbleModel.getTurnCount counts them.
+     * @return the game, with no view, no journal and an empty undo history.
+     * @throws IOException if the files cannot be read, the history is missing records,
+     *                     or the game never reached that turn.
+     */
+    public static ScrabbleModel replay(File file, int turn) throws IOException {
+        byte[] data = Files.readAllBytes(file.toPath());
+        Scan scan = scan(data);
+        ScrabbleModel model = null;
+        byte[][] position = new byte[1][];
+        Consumer<ScrabbleModel> atTurn = game -> {
+            if (game.getTurnCount() == turn) {
+                position[0] = SaveFormat.toBytes(game);
+            }
+        };
+        if (scan.archived > 0) {
+            File history = historyFile(file);
+            byte[] past = history.exists() ? Files.readAllBytes(history.toPath()) : new byte[0];
+            Scan pastScan = past.length == 0 ? null : scan(past);
+            if (pastScan == null || pastScan.end < scan.archived) {
+                throw new IOException("The history of the game is missing records");
+            }
+            model = replay(past, pastScan.start, (int) scan.archived, null, atTurn);
+        }
+        replay(data, scan.tail, scan.end, model, atTurn);
+        if (position[0] == null) {
+            throw new IOException("The game never reached turn " + turn);
+        }
+        return SaveFormat.read(new DataInputStream(new ByteArrayInputStream(position[0])));
+    }
+
+    /**
+     * Replays whole records onto a game.
+     *
+     * @param data the contents of a journal or history.
+     * @param from the offset of the first record to replay.
+     * @param to the offset after the last record to replay.
+     * @param model the game to replay onto, or null if the first record is a checkpoint.
+     * @param afterEach called with the game after each record.
+     * @return the game after the last record.
+     * @throws IOException if a move comes before any checkpoint or cannot be played.
+     */
+    private static ScrabbleModel replay(byte[] data, int from, int to, ScrabbleModel model,
+                                        Consumer<ScrabbleModel> afterEach) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data, from, to - from);
+        while (buffer.hasRemaining()) {
+            int type = buffer.get();
+            int length = buffer.getInt();
+            int start = buffer.position();
+            if (type != CHECKPOINT && model == null) {
+                throw new IOException("The journal holds a move before its first checkpoint at " + start);
+            }
+            switch (type) {
+                case CHECKPOINT -> model = SaveFormat.read(
+                        new DataInputStream(new ByteArrayInputStream(data, start, length)));
+                case MOVE -> {
+                    int x = buffer.get();
+                    int y = buffer.get();
+                    char direction = (char) buffer.get();
+                    int size = buffer.get() & 0xFF;
+                    List<Tile> word = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        word.add(SaveFormat.decode(buffer.get() & 0xFF));
+                    }
+                    if (!model.makeMove(x, y, direction, word)) {
+                        throw new IOException("The journal holds a move that cannot be played at " + start);
+                    }
+                }
+                case SKIP -> model.skip();
+                default -> throw new IOException("Unknown journal record " + type);
+            }
+            buffer.position(start + length + 4); // Past the payload and its checksum
+            afterEach.accept(model);
+        }
+        return model;
+    }
+
+    /**
+     * The extent of the whole records in a journal: where they start, where those not yet in the history
+     * start, the last checkpoint or -1 if there is none, and the end of the last whole record;
+     * with the length of history the records follow.
+     */
+    private record Scan(int start, int tail, int checkpoint, int end, long archived) {
+    }
+
+    /**
+     * Walks the records of a journal or history, checking each one, and finds the last checkpoint.
+     *
+     * @param data the contents of the file.
+     * @return the extent of its records.
+     * @throws IOException if the data is not a journal.
+     */
+    private static Scan scan(byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a move journal");
+        }
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        long archived = 0; // Version 1 journals have no history, so all their records are still to move to one
+        if (version >= 2) {
+            if (buffer.remaining() < 8) {
+                throw new IOException("Not a move journal");
+            }
+            archived = buffer.getLong();
+        }
+        int start = buffer.position();
+        int tail = start;
+        int checkpoint = -1;
+        int end = start;
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 5) {
+            int type = buffer.get();
+            int length = buffer.getInt();
+            if (length < 0 || length > MAX_RECORD || buffer.remaining() < length + 4) {
+                break;
+            }
+            crc.reset();
+            crc.update(type);
+            crc.update(data, buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            if (buffer.getInt() != (int) crc.getValue()) {
+                break;
+            }
+            if (type == CHECKPOINT) {
+                checkpoint = end;
+            }
+            if (end == start && type == CHECKPOINT && archived > 0) {
+                tail = buffer.position(); // A compacted journal starts with the checkpoint that ends its history
+            }
+            end = buffer.position();
+        }
+        return new Scan(start, tail, checkpoint, end, archived);
+    }
+
+    private static byte[] readAll(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        channel.position(0);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading until the whole file is in
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * What one turn changed, so it can be undone and redone without copying the game:
+ * the turn state before it, the tiles the move took from the hand and where they were held,
+ * how many tiles were drawn to replace them, and the move itself, which carries its squares and score.
+ * A skipped turn is a record with no move.
+ */
+public class MoveRecord implements HistoryEntry {
+    private final int playerIndex;
+    private final boolean firstMove;
+    private final int scorelessTurns;
+    private final MoveResult result;
+    private final Tile[] tiles;
+    private final int[] handIndexes;
+    private final char[] letters;
+    private int drawn;
+    private transient GameState stateBefore;
+    private transient long stateBytes; // The estimated bytes stateBefore holds apart from the state after it
+
+    /**
+     * Constructor for the MoveRecord class.
+     *
+     * @param playerIndex the index of the player whose turn it was.
+     * @param firstMove true if no word had been played before the turn.
+     * @param scorelessTurns the number of scoreless turns in a row before the turn.
+     * @param result the move played, or null for a skipped turn.
+     */
+    MoveRecord(int playerIndex, boolean firstMove, int scorelessTurns, MoveResult result) {
+        this.playerIndex = playerIndex;
+        this.firstMove = firstMove;
+        this.scorelessTurns = scorelessTurns;
+        this.result = result;
+        int placed = result == null ? 0 : result.getTilesPlaced();
+        this.tiles = new Tile[placed];
+        this.handIndexes = new int[placed];
+        this.letters = new char[placed];
+    }
+
+    /**
+     * Records a tile taken from the hand, in the order the move placed them.
+     *
+     * @param i which placed tile, from 0 to the number placed - 1.
+     * @param tile the tile taken from the hand.
+     * @param handIndex where the tile was in the hand when it was taken.
+     */
+    void setTile(int i, Tile tile, int handIndex) {
+        tiles[i] = tile;
+        handIndexes[i] = handIndex;
+        letters[i] = tile.getTileChar();
+    }
+
+    void setDrawn(int drawn) {
+        this.drawn = drawn;
+    }
+
+    /**
+     * Keeps the state of the game before the turn, so undo can restore it.
+     *
+     * @param stateBefore the state before the turn, or null if the model had none.
+     * @param stateAfter the state the turn led to, which shares most of its arrays with the state before.
+     */
+    void setStateBefore(GameState stateBefore, GameState stateAfter) {
+        this.stateBefore = stateBefore;
+        this.stateBytes = stateBefore == null ? 0 : stateBefore.estimateSizeApartFrom(stateAfter);
+    }
+
+    /**
+     * Returns the state of the game before the turn, if the model had one.
+     *
+     * @return the state, or null if none was kept.
+     */
+    GameState getStateBefore() {
+        return stateBefore;
+    }
+
+    public int getPlayerIndex() {
+        return playerIndex;
+    }
+
+    public boolean isFirstMove() {
+        return firstMove;
+    }
+
+    public int getScorelessTurns() {
+        return scorelessTurns;
+    }
+
+    /**
+     * Returns the move played.
+     *
+     * @return the move, or null if the turn was skipped.
+     */
+    public MoveResult getResult() {
+        return result;
+    }
+
+    public Tile getTile(int i) {
+        return tiles[i];
+    }
+
+    public int getHandIndex(int i) {
+        return handIndexes[i];
+    }
+
+    /**
+     * Returns the letter a tile had in the hand, which for a blank may differ from the letter it was played as.
+     *
+     * @param i which placed tile.
+     * @return the letter of the tile before it was played.
+     */
+    public char getLetter(int i) {
+        return letters[i];
+    }
+
+    /**
+     * Returns the number of tiles drawn from the bag after the move, which are at the end of the hand.
+     *
+     * @return the number of tiles drawn.
+     */
+    public int getDrawn() {
+        return drawn;
+    }
+
+    @Override
+    public long estimateSize() {
+        // The record, its three arrays, and the move with its word and placed indexes
+        long size = 64 + 3 * 16 + tiles.length * 10L;
+        if (result != null) {
+            size += 64 + 32 + result.getWord().size() * 4L + 16 + tiles.length * 4L;
+        }
+        return size + stateBytes;
+    }
+}
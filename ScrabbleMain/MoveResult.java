@@ -0,0 +1,142 @@
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The immutable outcome of checking a move with MoveValidator: whether it may be played,
+ * and if so where its new tiles go and how its score breaks down.
+ * ScrabbleModel.makeMove commits a valid result without looking at the board again.
+ */
+public class MoveResult implements Serializable {
+    private final boolean valid;
+    private final String reason;
+    private final int x;
+    private final int y;
+    private final char direction;
+    private final List<Tile> word;
+    private final int[] placed;
+    private final int mainScore;
+    private final int crossScore;
+
+    private MoveResult(boolean valid, String reason, int x, int y, char direction, List<Tile> word,
+                       int[] placed, int mainScore, int crossScore) {
+        this.valid = valid;
+        this.reason = reason;
+        this.x = x;
+        this.y = y;
+        this.direction = direction;
+        this.word = word;
+        this.placed = placed;
+        this.mainScore = mainScore;
+        this.crossScore = crossScore;
+    }
+
+    /**
+     * Creates the result of a move that may be played.
+     *
+     * @param x the x-coordinate of the first letter of the word.
+     * @param y the y-coordinate of the first letter of the word.
+     * @param direction the direction of the word ('D' for down, 'R' for right).
+     * @param word the tiles of the word.
+     * @param placed the indexes in the word of the tiles taken from the hand, in order.
+     * @param mainScore the points for the word itself.
+     * @param crossScore the points for the words formed across it.
+     * @return the result.
+     */
+    static MoveResult valid(int x, int y, char direction, List<Tile> word, int[] placed, int mainScore,
+                            int crossScore) {
+        return new MoveResult(true, null, x, y, direction, List.copyOf(word), placed.clone(), mainScore, crossScore);
+    }
+
+    /**
+     * Creates the result of a move that may not be played.
+     *
+     * @param reason why the move is rejected.
+     * @return the result.
+     */
+    static MoveResult invalid(String reason) {
+        return new MoveResult(false, reason, -1, -1, ' ', Collections.emptyList(), new int[0], 0, 0);
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Returns why the move was rejected.
+     *
+     * @return the reason, or null for a valid move.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public char getDirection() {
+        return direction;
+    }
+
+    /**
+     * Returns the tiles of the word, including those already on the board.
+     *
+     * @return an unmodifiable list of the tiles.
+     */
+    public List<Tile> getWord() {
+        return word;
+    }
+
+    /**
+     * Returns the number of tiles the move takes from the hand.
+     *
+     * @return the number of tiles placed.
+     */
+    public int getTilesPlaced() {
+        return placed.length;
+    }
+
+    /**
+     * Returns the index in the word of a tile taken from the hand.
+     *
+     * @param i which placed tile, from 0 to getTilesPlaced() - 1.
+     * @return the index of the tile in the word.
+     */
+    public int getPlacedIndex(int i) {
+        return placed[i];
+    }
+
+    public int getMainScore() {
+        return mainScore;
+    }
+
+    public int getCrossScore() {
+        return crossScore;
+    }
+
+    /**
+     * Returns the points the move earns: its own word plus every word formed across it.
+     *
+     * @return the total score.
+     */
+    public int getScore() {
+        return mainScore + crossScore;
+    }
+
+    @Override
+    public String toString() {
+        if (!valid) {
+            return "Invalid move: " + reason;
+        }
+        StringBuilder letters = new StringBuilder();
+        for (Tile tile : word) {
+            letters.append(Character.toUpperCase(tile.getTileChar()));
+        }
+        return letters + " at " + x + ", " + y + " " + direction + " (" + getScore() + ")";
+    }
+}
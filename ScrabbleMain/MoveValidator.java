@@ -0,0 +1,147 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks and scores a move in a single walk along its word.
+ *
+ * For each square of the word the validator checks the placement against the board, advances the word
+ * through the lexicon, counts the tiles needed from the hand, applies the square's premium, and for new
+ * tiles walks and scores the word formed across it. The result holds everything ScrabbleModel needs to
+ * commit the move, so the board is not walked again.
+ */
+public class MoveValidator {
+    private final Lexicon lexicon;
+
+    /**
+     * Constructor for the MoveValidator class.
+     *
+     * @param lexicon the lexicon words must be in.
+     */
+    public MoveValidator(Lexicon lexicon) {
+        this.lexicon = lexicon;
+    }
+
+    /**
+     * Checks if a word may be played and scores it.
+     * The word must be in the lexicon, fit on the board, agree with the tiles already there, place at least
+     * one tile from the hand, form valid words across every new tile, and cover the center square on the
+     * first move or touch a placed tile after it. Neither the board nor the hand is changed.
+     *
+     * @param board the board to play on.
+     * @param hand the tiles of the player making the move.
+     * @param firstMove true if no word has been played yet.
+     * @param x the starting x-coordinate of the word.
+     * @param y the starting y-coordinate of the word.
+     * @param direction the direction to place the word ('D' for down, 'R' for right).
+     * @param word the word to be placed, including tiles already on the board.
+     * @return the result, which is invalid with a reason if the move may not be played.
+     */
+    public MoveResult validate(Board board, List<Tile> hand, boolean firstMove, int x, int y, char direction,
+                               List<Tile> word) {
+        if (word.isEmpty()) {
+            return MoveResult.invalid("The word is empty");
+        }
+        int dx = direction == 'D' ? 0 : 1;
+        int dy = direction == 'D' ? 1 : 0;
+        if (x < 0 || y < 0 || x + dx * (word.size() - 1) > 14 || y + dy * (word.size() - 1) > 14) {
+            return MoveResult.invalid("The word does not fit on the board");
+        }
+
+        int node = lexicon.root();
+        int[] needed = new int[27];
+        int[] placed = new int[word.size()];
+        int tilesPlaced = 0;
+        int mainScore = 0;
+        int wordMultiplier = 1;
+        int crossScore = 0;
+        boolean touching = false;
+        boolean coversCenter = false;
+
+        for (int i = 0; i < word.size(); i++) {
+            int xIndex = x + dx * i;
+            int yIndex = y + dy * i;
+            Tile c = word.get(i);
+            if (node != Lexicon.NONE) {
+                node = lexicon.child(node, c.getTileChar());
+            }
+            coversCenter |= xIndex == 7 && yIndex == 7;
+
+            if (!board.isEmpty(xIndex, yIndex)) {
+                if (board.getLetter(xIndex, yIndex) != c.getTileChar()
+                        || board.isBlank(xIndex, yIndex) != c.isBlank()) {
+                    return MoveResult.invalid("The board has a different letter at " + xIndex + ", " + yIndex);
+                }
+                touching = true;
+                mainScore += board.getTileScore(xIndex, yIndex);
+                continue;
+            }
+
+            placed[tilesPlaced++] = i;
+            needed[handIndex(c)]++;
+            touching |= board.touches(xIndex, yIndex);
+
+            Premium premium = board.getPremium(xIndex, yIndex);
+            int multiplier = premium.getWordMultiplier();
+            int letterScore = board.getTileSet().getScore(c) * premium.getLetterMultiplier();
+            mainScore += letterScore;
+            wordMultiplier *= multiplier;
+
+            // Walk the word across the new tile from its first letter, scoring it as it is checked
+            int crossX = xIndex;
+            int crossY = yIndex;
+            while (!board.isEmpty(crossX - dy, crossY - dx)) {
+                crossX -= dy;
+                crossY -= dx;
+            }
+            int crossNode = lexicon.root();
+            int crossWordScore = 0;
+            int length = 0;
+            while ((crossX == xIndex && crossY == yIndex) || !board.isEmpty(crossX, crossY)) {
+                boolean isNew = crossX == xIndex && crossY == yIndex;
+                if (crossNode != Lexicon.NONE) {
+                    crossNode = lexicon.child(crossNode, isNew ? c.getTileChar() : board.getLetter(crossX, crossY));
+                }
+                crossWordScore += isNew ? letterScore : board.getTileScore(crossX, crossY);
+                length++;
+                crossX += dy;
+                crossY += dx;
+            }
+            if (length > 1) {
+                if (crossNode == Lexicon.NONE || !lexicon.isTerminal(crossNode)) {
+                    return MoveResult.invalid("The word across " + xIndex + ", " + yIndex + " is not valid");
+                }
+                crossScore += crossWordScore * multiplier;
+            }
+        }
+
+        if (node == Lexicon.NONE || !lexicon.isTerminal(node)) {
+            return MoveResult.invalid("The word is not in the dictionary");
+        }
+        if (tilesPlaced == 0) {
+            return MoveResult.invalid("The move places no tiles");
+        }
+        int[] held = new int[27];
+        for (Tile tile : hand) {
+            held[handIndex(tile)]++;
+        }
+        for (int i = 0; i < needed.length; i++) {
+            if (needed[i] > held[i]) {
+                return MoveResult.invalid("The hand does not hold the tiles for the word");
+            }
+        }
+        if (firstMove ? !coversCenter : !touching) {
+            return MoveResult.invalid(firstMove ? "The first word must cover the center square"
+                    : "The word must touch a placed tile");
+        }
+        return MoveResult.valid(x, y, direction, word, Arrays.copyOf(placed, tilesPlaced),
+                mainScore * wordMultiplier, crossScore);
+    }
+
+    /**
+     * Returns the index a tile is counted under in the hand: its letter, or 26 for any blank,
+     * whatever letter it has been given.
+     */
+    private static int handIndex(Tile tile) {
+        return tile.isBlank() ? 26 : Lexicon.letterIndex(tile.getTileChar());
+    }
+}
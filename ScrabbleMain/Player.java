@@ -1,10 +1,9 @@
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
 
 public class Player implements Serializable {
     private final String name;
-    private List<Tile> hand;
+    private Rack hand;
     private int myScore;
     private Bag bag;
 
@@ -18,11 +17,26 @@ public class Player implements Serializable {
     public Player(String name, Bag bag) {
         this.name = name;
         this.bag = bag;  // Set the bag for all Player instances (if shared)
-        this.hand = new ArrayList<>();  // Initialize player's hand as an empty list
+        this.hand = new Rack();  // Initialize player's hand as an empty rack
         this.myScore = 0;  // Initialize score to 0
         this.refillHand();  // Fill the player's hand with tiles
     }
 
+    /**
+     * Constructor for a Player read back from a save, which keeps the hand and score it was saved with.
+     *
+     * @param name the name of the player
+     * @param bag the bag of tiles for the game
+     * @param hand the tiles in the player's hand, in order
+     * @param score the player's score
+     */
+    Player(String name, Bag bag, List<Tile> hand, int score) {
+        this.name = name;
+        this.bag = bag;
+        this.hand = new Rack(hand);
+        this.myScore = score;
+    }
+
     /**
      * Refills the player's hand to 7 tiles by drawing from the bag.
      * Ensures that the hand only contains 7 tiles, as long as there are enough tiles in the bag.
@@ -34,19 +48,14 @@ public class Player implements Serializable {
     }
 
     /**
-     * Counts the occurrences of a specific character in the player's hand.
+     * Counts the tiles of a letter in the player's hand, read from the rack's counts.
      *
-     * @param c the character to count in the player's hand
-     * @return the number of times the character appears in the hand
+     * @param c the letter to count, or ' ' to count blanks
+     * @return the number of tiles of the letter in the hand, not counting blanks given that letter
      */
     public int numInHand(char c) {
-        int num = 0;
-        for (Tile tile : this.hand) {
-            if (tile.equals(c)) {  // Compare each tile's character with the input char
-                ++num;  // Increment counter if a match is found
-            }
-        }
-        return num;
+        int index = c == ' ' ? TileSet.BLANK : Lexicon.letterIndex(Character.toLowerCase(c));
+        return index < 0 ? 0 : hand.count(index);
     }
 
     /**
@@ -56,12 +65,53 @@ public class Player implements Serializable {
      * @return the Tile object that was removed, or null if not found
      */
     public Tile popTile(Tile c) {
+        int i = indexOfTile(c);
+        return i < 0 ? null : hand.remove(i);  // Remove the tile and return it
+    }
+
+    /**
+     * Removes a blank tile from the player's hand, whatever letter it was last given.
+     *
+     * @return the blank Tile that was removed, or null if the hand has no blank
+     */
+    public Tile popBlank() {
+        int i = indexOfBlank();
+        return i < 0 ? null : hand.remove(i);
+    }
+
+    /**
+     * Finds the first tile in the player's hand matching a tile.
+     *
+     * @param c the tile to look for
+     * @return the index of the matching tile, or -1 if not found
+     */
+    public int indexOfTile(Tile c) {
+        if (!c.isBlank() && numInHand(c.getTileChar()) == 0) {
+            return -1;  // The counts show the hand has no such letter
+        }
         for (int i = 0; i < hand.size(); i++) {
             if (hand.get(i).equals(c)) {  // Look for the tile matching the input character
-                return hand.remove(i);  // Remove the tile and return it
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first blank tile in the player's hand, whatever letter it was last given.
+     *
+     * @return the index of the blank, or -1 if the hand has no blank
+     */
+    public int indexOfBlank() {
+        if (hand.count(TileSet.BLANK) == 0) {
+            return -1;
+        }
+        for (int i = 0; i < hand.size(); i++) {
+            if (hand.get(i).isBlank()) {
+                return i;
             }
         }
-        return null;  // Return null if no matching tile is found
+        return -1;
     }
 
     /**
@@ -100,6 +150,15 @@ public class Player implements Serializable {
         return hand;
     }
 
+    /**
+     * Returns the player's hand with the count of each letter it holds.
+     *
+     * @return the player's rack, the same list as getHand
+     */
+    public Rack getRack() {
+        return hand;
+    }
+
     public boolean isWord(List<Tile> hand, int length){
 
         return false;
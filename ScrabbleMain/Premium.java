@@ -0,0 +1,54 @@
+/**
+ * The premium of a board square, as named in the board layout files.
+ * Letter premiums multiply the score of a new tile on the square; word premiums multiply
+ * the score of every word the new tile is part of.
+ */
+public enum Premium {
+    NORMAL(1, 1),
+    DL(2, 1),
+    TL(3, 1),
+    DW(1, 2),
+    TW(1, 3);
+
+    private static final Premium[] VALUES = values();
+
+    private final int letterMultiplier;
+    private final int wordMultiplier;
+
+    Premium(int letterMultiplier, int wordMultiplier) {
+        this.letterMultiplier = letterMultiplier;
+        this.wordMultiplier = wordMultiplier;
+    }
+
+    public int getLetterMultiplier() {
+        return letterMultiplier;
+    }
+
+    public int getWordMultiplier() {
+        return wordMultiplier;
+    }
+
+    /**
+     * Returns the premium with the given ordinal, as stored in a board's premium grid.
+     *
+     * @param ordinal the ordinal of the premium
+     * @return the premium
+     */
+    static Premium of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Returns the premium for a type name in a board layout file.
+     *
+     * @param name the type name, such as "DL" or "TW"
+     * @return the premium
+     * @throws IllegalArgumentException if the name is not a premium
+     */
+    public static Premium fromName(String name) {
+        if (name.equalsIgnoreCase("normal")) {
+            return NORMAL;
+        }
+        return valueOf(name.toUpperCase());
+    }
+}
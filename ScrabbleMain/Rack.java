@@ -0,0 +1,143 @@
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A player's tiles: the list they are shown in, with a count of each letter kept alongside it.
+ *
+ * Every change to the list goes through add, set and remove, which keep the counts in step, so asking how
+ * many of a letter the rack holds, or whether it can make a word, never looks at the tiles themselves.
+ * Blanks are counted at index TileSet.BLANK whatever letter they have been given.
+ */
+public class Rack extends AbstractList<Tile> implements RandomAccess, Serializable {
+    private final List<Tile> tiles;
+    private final int[] counts = new int[TileSet.BLANK + 1];
+
+    /**
+     * Constructor for an empty Rack.
+     */
+    public Rack() {
+        this.tiles = new ArrayList<>(7);
+    }
+
+    /**
+     * Constructor for a Rack holding tiles.
+     *
+     * @param tiles the tiles, in order.
+     */
+    public Rack(List<Tile> tiles) {
+        this.tiles = new ArrayList<>(Math.max(7, tiles.size()));
+        addAll(tiles);
+    }
+
+    @Override
+    public Tile get(int index) {
+        return tiles.get(index);
+    }
+
+    @Override
+    public int size() {
+        return tiles.size();
+    }
+
+    @Override
+    public Tile set(int index, Tile tile) {
+        int letter = letterOf(tile.isBlank(), tile.getTileChar());
+        Tile old = tiles.set(index, tile);
+        counts[letter]++; // Only once the list has taken the tile, so a bad index leaves the counts alone
+        counts[letterOf(old.isBlank(), old.getTileChar())]--;
+        return old;
+    }
+
+    @Override
+    public void add(int index, Tile tile) {
+        int letter = letterOf(tile.isBlank(), tile.getTileChar());
+        tiles.add(index, tile);
+        counts[letter]++;
+        modCount++;
+    }
+
+    @Override
+    public Tile remove(int index) {
+        Tile old = tiles.remove(index);
+        counts[letterOf(old.isBlank(), old.getTileChar())]--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        tiles.clear();
+        Arrays.fill(counts, 0);
+        modCount++;
+    }
+
+    private static int letterOf(boolean blank, char letter) {
+        if (blank) {
+            return TileSet.BLANK;
+        }
+        int index = Lexicon.letterIndex(letter);
+        if (index < 0) {
+            throw new IllegalArgumentException("That is not a valid tile");
+        }
+        return index;
+    }
+
+    /**
+     * Returns how many tiles of a letter, or blanks, the rack holds.
+     *
+     * @param letter the letter index from 0 to 25, or TileSet.BLANK.
+     * @return the number of tiles.
+     */
+    public int count(int letter) {
+        return counts[letter];
+    }
+
+    /**
+     * Counts the tiles in the rack by letter.
+     *
+     * @return a new array of the count of each letter, with blanks counted at index TileSet.BLANK.
+     */
+    public int[] getCounts() {
+        return counts.clone();
+    }
+
+    /**
+     * Checks if the rack holds tiles for a set of letters, with blanks standing in for any letters it lacks.
+     *
+     * @param needed the count of each letter needed, with blanks that must be played as blanks at TileSet.BLANK.
+     * @return true if the rack can supply every letter.
+     */
+    public boolean canMake(int[] needed) {
+        int blanks = counts[TileSet.BLANK] - needed[TileSet.BLANK];
+        for (int i = 0; i < TileSet.BLANK && blanks >= 0; i++) {
+            if (needed[i] > counts[i]) {
+                blanks -= needed[i] - counts[i];
+            }
+        }
+        return blanks >= 0;
+    }
+
+    /**
+     * Checks if the rack holds tiles for a word, with blanks standing in for any letters it lacks.
+     * The word is counted by letter in one pass, then checked against the counts as canMake(int[]) does.
+     *
+     * @param word the letters to play, with ' ' for a tile that must be a blank.
+     * @return true if the rack can supply every letter.
+     */
+    public boolean canMake(CharSequence word) {
+        int[] needed = new int[TileSet.BLANK + 1];
+        for (int i = 0; i < word.length(); i++) {
+            char letter = Character.toLowerCase(word.charAt(i));
+            int index = letter == ' ' ? TileSet.BLANK : Lexicon.letterIndex(letter);
+            if (index < 0) {
+                return false;
+            }
+            needed[index]++;
+        }
+        return canMake(needed);
+    }
+}
@@ -0,0 +1,312 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * An index of the saved games in a directory, with what each holds: its players and their scores,
+ * the number of turns played, the board layout and when it was saved.
+ *
+ * The index is a single file in the directory, read whole when the catalog is opened, so listing saves
+ * never opens the saves themselves. Each save adds one record to the end of the index; a record for a
+ * name replaces the earlier ones, and the index is rewritten without them once they outnumber the saves.
+ * If the index is missing or cannot be read, it is rebuilt by reading every save in the directory once;
+ * a file that cannot be read as a save is still listed, with no details, so loading it reports why.
+ *
+ * Layout, all numbers big-endian:
+ * <pre>
+ * int     MAGIC
+ * short   VERSION
+ * then per record: int payload length, then
+ *           UTF name, long time saved in ms, UTF board layout id, short turns played (-1 if unreadable),
+ *           byte player count, then per player: UTF name, int score
+ * </pre>
+ */
+public class SaveCatalog {
+    /** The name of the index file in the save directory. */
+    public static final String FILE_NAME = ".catalog";
+    /** The first bytes of every index: "SCRC". */
+    public static final int MAGIC = 0x53435243;
+    /** The version written; readers accept this version and older ones. */
+    public static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 6;
+
+    private final File directory;
+    private final Path index;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(); // Oldest save first
+    private int records;
+
+    /**
+     * Opens the catalog of a save directory, building its index if it has none.
+     *
+     * @param directory the directory games are saved to.
+     */
+    public SaveCatalog(File directory) {
+        this.directory = directory;
+        this.index = new File(directory, FILE_NAME).toPath();
+        try {
+            if (!read(Files.readAllBytes(index))) {
+                compact();
+            }
+        } catch (IOException e) {
+            rebuild();
+        }
+    }
+
+    /**
+     * What a saved game holds, as shown when choosing a game to load.
+     */
+    public static final class Entry {
+        private final String name;
+        private final long savedAt;
+        private final String layoutId;
+        private final int turnCount;
+        private final String[] players;
+        private final int[] scores;
+
+        private Entry(String name, long savedAt, String layoutId, int turnCount, String[] players, int[] scores) {
+            this.name = name;
+            this.savedAt = savedAt;
+            this.layoutId = layoutId;
+            this.turnCount = turnCount;
+            this.players = players;
+            this.scores = scores;
+        }
+
+        /**
+         * Describes a game as it is being saved.
+         *
+         * @param name the name of the save file.
+         * @param model the game.
+         * @return the entry for the save, saved now.
+         */
+        public static Entry of(String name, ScrabbleModel model) {
+            return of(name, model, System.currentTimeMillis());
+        }
+
+        private static Entry of(String name, ScrabbleModel model, long savedAt) {
+            List<Player> list = model.getPlayers();
+            String[] players = new String[list.size()];
+            int[] scores = new int[list.size()];
+            for (int i = 0; i < players.length; i++) {
+                players[i] = list.get(i).getName();
+                scores[i] = list.get(i).getScore();
+            }
+            return new Entry(name, savedAt, model.getBoard().getLayoutId(), model.getTurnCount(), players, scores);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSavedAt() {
+            return savedAt;
+        }
+
+        public String getLayoutId() {
+            return layoutId;
+        }
+
+        public int getTurnCount() {
+            return turnCount;
+        }
+
+        /**
+         * Checks if the save could be read when it was catalogued.
+         *
+         * @return false for a file listed without details.
+         */
+        public boolean isReadable() {
+            return turnCount >= 0;
+        }
+
+        public int getPlayerCount() {
+            return players.length;
+        }
+
+        public String getPlayerName(int player) {
+            return players[player];
+        }
+
+        public int getScore(int player) {
+            return scores[player];
+        }
+
+        /**
+         * Summarises the save in one line, such as "Ann 120, Bob 98 - 14 turns - default".
+         *
+         * @return the summary.
+         */
+        public String getDescription() {
+            if (!isReadable()) {
+                return "Cannot be read by this version of the game";
+            }
+            StringBuilder description = new StringBuilder();
+            for (int i = 0; i < players.length; i++) {
+                description.append(i == 0 ? "" : ", ").append(players[i]).append(' ').append(scores[i]);
+            }
+            return description.append(" - ").append(turnCount).append(" turns - ").append(layoutId).toString();
+        }
+    }
+
+    /**
+     * Lists the saves, most recently saved first.
+     *
+     * @return a new list of the entries.
+     */
+    public List<Entry> getEntries() {
+        List<Entry> list = new ArrayList<>(entries.values());
+        Collections.reverse(list);
+        return list;
+    }
+
+    /**
+     * Finds the entry for a save.
+     *
+     * @param name the name of the save file.
+     * @return the entry, or null if the catalog has no save of that name.
+     */
+    public Entry get(String name) {
+        return entries.get(name);
+    }
+
+    /**
+     * Adds or replaces the entry for a save, appending it to the index on the background save thread.
+     *
+     * @param entry the entry, from Entry.of when the game was saved.
+     */
+    public void put(Entry entry) {
+        entries.remove(entry.getName()); // Keep the entries in the order they were saved
+        entries.put(entry.getName(), entry);
+        records++;
+        if (records > 2 * entries.size() + 16) {
+            compact();
+        } else {
+            SaveWriter.appendAsync(index, encode(entry));
+        }
+    }
+
+    /**
+     * Reads the index.
+     *
+     * @param data the contents of the index.
+     * @return false if the index should be rewritten, as it ends in a torn record or holds many stale ones.
+     * @throws IOException if the data is not an index this version can read.
+     */
+    private boolean read(byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a save catalog");
+        }
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported catalog version " + version);
+        }
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                return false;
+            }
+            Entry entry;
+            try {
+                entry = decode(new DataInputStream(new ByteArrayInputStream(data, buffer.position(), length)));
+            } catch (IOException e) {
+                return false;
+            }
+            buffer.position(buffer.position() + length);
+            entries.remove(entry.getName());
+            entries.put(entry.getName(), entry);
+            records++;
+        }
+        return !buffer.hasRemaining() && records <= 2 * entries.size() + 16;
+    }
+
+    /**
+     * Builds the index from the saves in the directory, reading each one.
+     */
+    private void rebuild() {
+        entries.clear();
+        File[] files = directory.listFiles((dir, name) -> !name.equals(FILE_NAME) && !name.endsWith(".tmp"));
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (File file : files) {
+                try {
+                    entries.put(file.getName(), Entry.of(file.getName(), ScrabbleModel.readSave(file), file.lastModified()));
+                } catch (IOException | RuntimeException e) {
+                    // Still listed, so the player sees it and gets the reason when loading it
+                    entries.put(file.getName(), new Entry(file.getName(), file.lastModified(), "", -1,
+                            new String[0], new int[0]));
+                }
+            }
+        }
+        try {
+            SaveWriter.write(index, encodeAll());
+        } catch (IOException e) {
+            System.out.println("Error writing save catalog:" + e.getMessage());
+        }
+        records = entries.size();
+    }
+
+    /**
+     * Rewrites the index with only the current entries, on the background save thread.
+     */
+    private void compact() {
+        records = entries.size();
+        SaveWriter.writeAsync(index, encodeAll(), error -> {
+            if (error != null) {
+                System.out.println("Error writing save catalog:" + error.getMessage());
+            }
+        });
+    }
+
+    private byte[] encodeAll() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + entries.size() * 64);
+        try {
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            for (Entry entry : entries.values()) {
+                out.write(encode(entry));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Writing to memory cannot fail
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encode(Entry entry) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        try {
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeUTF(entry.name);
+            out.writeLong(entry.savedAt);
+            out.writeUTF(entry.layoutId);
+            out.writeShort(entry.turnCount);
+            out.writeByte(entry.players.length);
+            for (int i = 0; i < entry.players.length; i++) {
+                out.writeUTF(entry.players[i]);
+                out.writeInt(entry.scores[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Writing to memory cannot fail
+        }
+        return ByteBuffer.allocate(4 + payload.size()).putInt(payload.size()).put(payload.toByteArray()).array();
+    }
+
+    private static Entry decode(DataInput in) throws IOException {
+        String name = in.readUTF();
+        long savedAt = in.readLong();
+        String layoutId = in.readUTF();
+        int turnCount = in.readShort();
+        int count = in.readUnsignedByte();
+        String[] players = new String[count];
+        int[] scores = new int[count];
+        for (int i = 0; i < count; i++) {
+            players[i] = in.readUTF();
+            scores[i] = in.readInt();
+        }
+        return new Entry(name, savedAt, layoutId, turnCount, players, scores);
+    }
+}
@@ -0,0 +1,229 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes games in a compact, versioned binary format.
+ *
+ * A save holds only what is needed to carry on the game: the dictionary, board layout and tile set it is
+ * played with, whose turn it is, each player's name, kind, score and hand, the letters on the board and
+ * the tiles left in the bag in draw order. Each tile is a single byte, so a save is a few hundred bytes,
+ * and since nothing depends on the layout of the game's classes, saves survive changes to them.
+ *
+ * Layout, all numbers big-endian:
+ * <pre>
+ * int     MAGIC
+ * short   VERSION
+ * UTF     lexicon id, board layout id, tile set id
+ * byte    flags (FIRST_MOVE)
+ * byte    scoreless turns
+ * short   turns played (since version 2)
+ * byte    current player
+ * byte    player count, then per player:
+ *           UTF name, byte kind (HUMAN or COMPUTER), [long move budget in ms if COMPUTER],
+ *           int score, byte hand size, hand tiles
+ * byte    board tile count, then per tile: byte square (x * 15 + y), tile
+ * byte    bag tile count, then the tiles, the next drawn last
+ * </pre>
+ * A tile is its letter in ASCII, or ' ' for a blank with no letter, with BLANK set for blanks.
+ */
+public final class SaveFormat {
+    /** The first bytes of every save: "SCRB". */
+    public static final int MAGIC = 0x53435242;
+    /** The version written; readers accept this version and older ones. */
+    public static final short VERSION = 2;
+
+    private static final int FIRST_MOVE = 1;
+    private static final int HUMAN = 0;
+    private static final int COMPUTER = 1;
+    private static final int BLANK = 0x80;
+
+    private SaveFormat() {
+    }
+
+    /**
+     * Writes a game.
+     *
+     * @param model the game to save.
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    public static void write(ScrabbleModel model, DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        Board board = model.getBoard();
+        out.writeUTF(model.getLexiconId());
+        out.writeUTF(board.getLayoutId());
+        out.writeUTF(model.getTileSetId());
+        out.writeByte(model.isFirst() ? FIRST_MOVE : 0);
+        out.writeByte(model.getScorelessTurns());
+        out.writeShort(model.getTurnCount());
+
+        List<Player> players = model.getPlayers();
+        out.writeByte(players.indexOf(model.getCurrentPlayer()));
+        out.writeByte(players.size());
+        for (Player player : players) {
+            out.writeUTF(player.getName());
+            if (player instanceof ComputerPlayer computer) {
+                out.writeByte(COMPUTER);
+                out.writeLong(computer.getMoveBudgetMillis());
+            } else {
+                out.writeByte(HUMAN);
+            }
+            out.writeInt(player.getScore());
+            out.writeByte(player.handSize());
+            for (Tile tile : player.getHand()) {
+                out.writeByte(encode(tile));
+            }
+        }
+
+        out.writeByte(board.getTileCount());
+        for (int x = 0; x < 15; x++) {
+            for (int y = 0; y < 15; y++) {
+                if (!board.isEmpty(x, y)) {
+                    out.writeByte(x * 15 + y);
+                    out.writeByte(board.getLetter(x, y) | (board.isBlank(x, y) ? BLANK : 0));
+                }
+            }
+        }
+
+        byte[] bag = model.getBag().getDrawOrder();
+        out.writeByte(bag.length);
+        for (byte letter : bag) {
+            out.writeByte(letter == TileSet.BLANK ? ' ' | BLANK : 'a' + letter);
+        }
+    }
+
+    /**
+     * Writes a game to memory, which takes a few microseconds, so the bytes can be written to disk later.
+     *
+     * @param model the game to save.
+     * @return the save.
+     */
+    public static byte[] toBytes(ScrabbleModel model) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try {
+            write(model, new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Writing to memory cannot fail
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a game written by write.
+     *
+     * @param in the stream to read from.
+     * @return the game, with no view and an empty undo history.
+     * @throws IOException if the stream cannot be read or does not hold a save this version can read.
+     */
+    public static ScrabbleModel read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a saved game");
+        }
+        short version = in.readShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported save version " + version);
+        }
+        String lexiconId = in.readUTF();
+        String layoutId = in.readUTF();
+        String tileSetId = in.readUTF();
+        TileSet tileSet;
+        try {
+            tileSet = TileSet.get(tileSetId);
+        } catch (RuntimeException e) {
+            throw new IOException("The game was saved with the " + tileSetId + " tile set, which cannot be loaded");
+        }
+        boolean firstMove = (in.readUnsignedByte() & FIRST_MOVE) != 0;
+        int scorelessTurns = in.readUnsignedByte();
+        int turnCount = version >= 2 ? in.readUnsignedShort() : 0;
+        int currentPlayer = in.readUnsignedByte();
+
+        Bag bag = new Bag(new ArrayList<>()); // Filled once the players are read, as they share it
+        int playerCount = in.readUnsignedByte();
+        List<Player> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            String name = in.readUTF();
+            int kind = in.readUnsignedByte();
+            long budget = kind == COMPUTER ? in.readLong() : 0;
+            int score = in.readInt();
+            List<Tile> hand = readTiles(in);
+            players.add(kind == COMPUTER ? new ComputerPlayer(name, bag, budget, hand, score)
+                    : new Player(name, bag, hand, score));
+        }
+        if (currentPlayer >= playerCount) {
+            throw new IOException("The saved turn is not a player's");
+        }
+
+        Board board = new Board(tileSet);
+        if (!layoutId.equals(board.getLayoutId())) {
+            board.setMultiplier(layoutId);
+        }
+        int tiles = in.readUnsignedByte();
+        for (int i = 0; i < tiles; i++) {
+            int square = in.readUnsignedByte();
+            Tile tile = decode(in.readUnsignedByte());
+            if (square >= 225 || tile.getTileChar() == ' ' || !board.isEmpty(square / 15, square % 15)) {
+                throw new IOException("Invalid board square in save: " + square);
+            }
+            board.addLetter(square / 15, square % 15, tile);
+        }
+
+        for (Tile tile : readTiles(in)) {
+            bag.returnTile(tile);
+        }
+        return new ScrabbleModel(board, bag, players, currentPlayer, firstMove, scorelessTurns, turnCount, lexiconId);
+    }
+
+    /**
+     * Checks if a file holds a save in this format, rather than a game written by Java serialization.
+     *
+     * @param file the file to check.
+     * @return true if the file starts with MAGIC.
+     * @throws IOException if the file cannot be read.
+     */
+    public static boolean isSaveFile(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return file.length() >= 4 && in.readInt() == MAGIC;
+        }
+    }
+
+    private static List<Tile> readTiles(DataInput in) throws IOException {
+        int count = in.readUnsignedByte();
+        List<Tile> tiles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tiles.add(decode(in.readUnsignedByte()));
+        }
+        return tiles;
+    }
+
+    /**
+     * Encodes a tile as a single byte.
+     *
+     * @param tile the tile.
+     * @return its letter in ASCII, or ' ' for a blank with no letter, with BLANK set for blanks.
+     */
+    static int encode(Tile tile) {
+        return tile.getTileChar() | (tile.isBlank() ? BLANK : 0);
+    }
+
+    /**
+     * Decodes a tile written by encode.
+     *
+     * @param code the tile's byte.
+     * @return a new tile.
+     * @throws IOException if the byte is not a tile.
+     */
+    static Tile decode(int code) throws IOException {
+        char letter = (char) (code & ~BLANK);
+        if (letter != ' ' && Lexicon.letterIndex(letter) < 0) {
+            throw new IOException("Invalid tile in save: " + code);
+        }
+        if ((code & BLANK) == 0) {
+            return new Tile(letter);
+        }
+        Tile blank = new Tile(' ');
+        blank.setTileChar(letter);
+        return blank;
+    }
+}
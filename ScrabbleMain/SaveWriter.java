@@ -0,0 +1,118 @@
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Writes save files so that a crash never leaves a half written one behind.
+ *
+ * The bytes go to a temporary file next to the target, which is forced to disk and then renamed over the
+ * target in one step, so the target holds either the old save or the new one. The directory is then forced
+ * to disk as well, so the rename itself is not lost. Writes started with writeAsync or appendAsync run in
+ * order on a single background thread, so the caller never waits on the disk.
+ */
+public final class SaveWriter {
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "save-writer");
+        thread.setDaemon(true); // Never keep the game running
+        return thread;
+    });
+
+    private SaveWriter() {
+    }
+
+    /**
+     * Writes a file atomically.
+     *
+     * @param target the file to write.
+     * @param data the whole contents of the file.
+     * @throws IOException if the file cannot be written, in which case the target is left as it was.
+     */
+    public static void write(Path target, byte[] data) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // The rename lives in the directory, which must reach the disk too for the new save to survive a crash
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // Some platforms, such as Windows, cannot open a directory to sync it
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a file atomically on the background thread.
+     *
+     * @param target the file to write.
+     * @param data the whole contents of the file, which must not be changed afterwards.
+     * @param onWritten called on the event dispatch thread once the write is done,
+     *                  with null, or the exception if the file could not be written.
+     */
+    public static void writeAsync(Path target, byte[] data, Consumer<IOException> onWritten) {
+        writer.execute(() -> {
+            IOException error = null;
+            try {
+                write(target, data);
+            } catch (IOException e) {
+                error = e;
+            }
+            IOException result = error;
+            SwingUtilities.invokeLater(() -> onWritten.accept(result));
+        });
+    }
+
+    /**
+     * Appends to a file on the background thread, after any writes started before it.
+     *
+     * @param target the file to append to, created if it does not exist.
+     * @param data the bytes to append, which must not be changed afterwards.
+     */
+    public static void appendAsync(Path target, byte[] data) {
+        writer.execute(() -> {
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                System.out.println("Error appending to " + target + ":" + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Waits for the writes started so far to finish.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public static void awaitWrites() throws InterruptedException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e); // An empty task cannot fail
+        }
+    }
+}
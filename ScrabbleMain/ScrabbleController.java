@@ -2,6 +2,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 
 /**
@@ -15,10 +16,12 @@ class PlayedTile {
 }
 
 public class ScrabbleController implements ActionListener {
+    private static final long HINT_MILLIS = 500; // Time budget for finding a hint
     private ScrabbleModel model;
     private final ScrabbleView view;
     private List<PlayedTile> playedTiles;
     private PlayedTile selectedTile;
+    private SwingWorker<Move, Void> computerTurn; // The computer player's move being chosen, or null
 
     /**
      * Constructor for the ScrabbleController class.
@@ -51,6 +54,9 @@ public class ScrabbleController implements ActionListener {
      */
     @Override
     public void actionPerformed(ActionEvent e) {
+        if (computerTurn != null) {
+            return; // The game must not change while a computer player is choosing its move from it
+        }
         String[] position = e.getActionCommand().split(" ");
         String command = position[0];
 
@@ -59,12 +65,16 @@ public class ScrabbleController implements ActionListener {
             case "H" -> handleHandButton(Integer.parseInt(position[1]));
             case "P" -> handlePlayButton();
             case "HELP" -> view.showHelp();
+            case "HINT" -> {
+                Move hint = model.getHint(HINT_MILLIS);
+                JOptionPane.showMessageDialog(view.getFrame(), hint == null ? "No better move than skipping!" : "Try: " + hint);
+            }
             case "RGSP" -> {
-                model.saveState(); //save state
                 System.out.println("reset");
                 this.playedTiles = new ArrayList<>();
                 this.selectedTile = null;
                 model.resetGame(); // Reset same players
+                playComputerTurns();
             }
             case "RGNP" -> {
                 this.playedTiles = new ArrayList<>();
@@ -76,31 +86,53 @@ public class ScrabbleController implements ActionListener {
                 this.playedTiles = new ArrayList<>();
                 this.selectedTile = null;
                 model.skip();
+                playComputerTurns();
             }
             case "SAVE" -> {
                 String input = JOptionPane.showInputDialog(view.getFrame(), "Title your save!");
                 while(input.contains(" ")) {
                     input = JOptionPane.showInputDialog(view.getFrame(), "No spaces allowed! Title your save!");
                 }
-                model.saveState("src/saves/" + input);
-                view.updateLoadMenu();
+                SaveCatalog.Entry entry = SaveCatalog.Entry.of(input, model);
+                model.saveStateAsync("src/saves/" + input, error -> {
+                    if (error != null) {
+                        JOptionPane.showMessageDialog(view.getFrame(), "Error saving game state!:" + error.getMessage());
+                    } else {
+                        view.getSaveCatalog().put(entry);
+                    }
+                    view.updateLoadMenu();
+                });
+            }
+            case "LOAD" -> {
+                model.loadState("src/saves/" + position[1]);
+                playComputerTurns();
             }
-            case "LOAD" -> model.loadState("src/saves/" + position[1]);
             case "XML" -> {
-                model.getBoard().setMultiplier(position[1]);
+                if (!model.setLayout(position[1])) {
+                    JOptionPane.showMessageDialog(view.getFrame(), "The board can only be changed before the first move!");
+                }
                 view.updateView();
+                playComputerTurns();
             }
             case "UNDO" -> {
                 if (!model.undo()) {
                     JOptionPane.showMessageDialog(view.getFrame(), "No moves to undo!");
                 }
+                while (hasHumanPlayer() && model.getCurrentPlayer() instanceof ComputerPlayer && model.undo()) {
+                    // Take back the computer players' turns as well, back to the last turn a person played
+                }
                 view.updateView(); // Refresh view after undo
+                playComputerTurns();
             }
             case "REDO" -> {
                 if (!model.redo()) {
                     JOptionPane.showMessageDialog(view.getFrame(), "No moves to redo!");
                 }
+                while (model.getCurrentPlayer() instanceof ComputerPlayer && model.redo()) {
+                    // Replay the computer players' undone turns too, up to the next turn a person played
+                }
                 view.updateView(); // Refresh view after redo
+                playComputerTurns();
             }
         }
     }
@@ -139,24 +171,13 @@ public class ScrabbleController implements ActionListener {
 
         char direction;
 
-        List<Tile> word = new ArrayList<>();
-        word.add(firstTile.tile);
-
         Board board = model.getBoard();
 
-        int xIndex;
-        int yIndex;
-
-        int xStartIndex;
-        int yStartIndex;
-        int xFinishIndex;
-        int yFinishIndex;
-
         // Determine play direction and validates for single tile play
         if (playedTiles.size() == 1) {
-            if (!board.isEmpty(firstTile.x - 1, firstTile.y) || !board.isEmpty(firstTile.x + 1, firstTile.y)) {
+            if (board.hasNeighbour('R', firstTile.x, firstTile.y)) {
                 direction = 'R';
-            } else if (!board.isEmpty(firstTile.x, firstTile.y - 1) || !board.isEmpty(firstTile.x, firstTile.y + 1)) {
+            } else if (board.hasNeighbour('D', firstTile.x, firstTile.y)) {
                 direction = 'D';
             } else if (!model.isFirst()) {
                 handleIllegalMove();
@@ -168,61 +189,45 @@ public class ScrabbleController implements ActionListener {
             direction = (firstTile.x == playedTiles.get(1).x) ? 'D' : 'R';
         }
 
-        // Construct the word and calculate start/end indexes based on direction
-        if (direction == 'D') { // Vertical word construction
-            yIndex = firstTile.y + 1;
-            xIndex = firstTile.x;
-            while (!board.isEmpty(xIndex, yIndex) || getPlayedTileAtXY(xIndex, yIndex) != null) {
-                word.add(!board.isEmpty(xIndex, yIndex) ?
-                        board.getTile(xIndex, yIndex) :
-                        getPlayedTileAtXY(xIndex, yIndex).tile);
-                yIndex++;
-            }
-            xFinishIndex = xIndex;
-            yFinishIndex = yIndex - 1;
-            yIndex = firstTile.y - 1;
-            while (!board.isEmpty(xIndex, yIndex) || getPlayedTileAtXY(xIndex, yIndex) != null) {
-                word.addFirst(!board.isEmpty(xIndex, yIndex) ?
-                        board.getTile(xIndex, yIndex) :
-                        getPlayedTileAtXY(xIndex, yIndex).tile);
-                yIndex--;
-            }
-            xStartIndex = xIndex;
-            yStartIndex = yIndex + 1;
-        } else { // Horizontal word construction
-            yIndex = firstTile.y;
-            xIndex = firstTile.x + 1;
-            while (!board.isEmpty(xIndex, yIndex) || getPlayedTileAtXY(xIndex, yIndex) != null) {
-                word.add(!board.isEmpty(xIndex, yIndex) ?
-                        board.getTile(xIndex, yIndex) :
-                        getPlayedTileAtXY(xIndex, yIndex).tile);
-                xIndex++;
-            }
-            xFinishIndex = xIndex - 1;
-            yFinishIndex = yIndex;
-            xIndex = firstTile.x - 1;
-            while (!board.isEmpty(xIndex, yIndex) || getPlayedTileAtXY(xIndex, yIndex) != null) {
-                word.addFirst(!board.isEmpty(xIndex, yIndex) ?
-                        board.getTile(xIndex, yIndex) :
-                        getPlayedTileAtXY(xIndex, yIndex).tile);
-                xIndex--;
-            }
-            xStartIndex = xIndex + 1;
-            yStartIndex = yIndex;
-        }
-
-        // Ensures all played tiles are part of constructed word
+        // Collect the played tiles into a mask along the line, which they must all be on
+        int line = direction == 'D' ? firstTile.x : firstTile.y;
+        int played = 0;
         for (PlayedTile tile : playedTiles) {
-            if (direction == 'D' && (tile.x != xStartIndex || tile.y > yFinishIndex || tile.y < yStartIndex) ||
-                    direction == 'R' && (tile.y != yStartIndex || tile.x > xFinishIndex || tile.x < xStartIndex)) {
+            if ((direction == 'D' ? tile.x : tile.y) != line) {
                 handleIllegalMove();
                 return;
             }
+            played |= 1 << (direction == 'D' ? tile.y : tile.x);
+        }
+
+        // The word is the run of board and played tiles through the first played tile
+        int occupied = board.getLineMask(direction, line) | played;
+        int position = direction == 'D' ? firstTile.y : firstTile.x;
+        int start = Board.runStart(occupied, position);
+        int end = Board.runEnd(occupied, position);
+
+        // Ensures all played tiles are part of constructed word
+        if ((played & ~Board.span(start, end)) != 0) {
+            handleIllegalMove();
+            return;
+        }
+
+        List<Tile> word = new ArrayList<>();
+        for (int i = start; i <= end; i++) {
+            int xIndex = direction == 'D' ? line : i;
+            int yIndex = direction == 'D' ? i : line;
+            word.add(!board.isEmpty(xIndex, yIndex) ?
+                    board.getTile(xIndex, yIndex) :
+                    getPlayedTileAtXY(xIndex, yIndex).tile);
         }
+        int xStartIndex = direction == 'D' ? line : start;
+        int yStartIndex = direction == 'D' ? start : line;
 
         // Make the move on the model, handle illegal move if unsuccessful
         if (!model.makeMove(xStartIndex, yStartIndex, direction, word)) {
             handleIllegalMove();
+        } else {
+            playComputerTurns(); // Let any computer players take their turns
         }
         this.playedTiles = new ArrayList<>();
         this.selectedTile = null;
@@ -310,4 +315,54 @@ public class ScrabbleController implements ActionListener {
         JOptionPane.showMessageDialog(view.getFrame(), "This move is illegal! \n Try again!");
         view.updateView();
     }
+
+    /**
+     * Checks whether any player in the game is a person rather than a computer player.
+     *
+     * @return true if some player is not a ComputerPlayer.
+     */
+    private boolean hasHumanPlayer() {
+        for (Player player : model.getPlayers()) {
+            if (!(player instanceof ComputerPlayer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lets computer players take their turns until it is a human player's turn or the game is over.
+     * Each move is chosen on a background thread, so the window keeps painting while a computer player
+     * thinks, and is played on the event dispatch thread; input is ignored until the turns are done.
+     * This must be called after every change to the game, as any change can leave a computer player to move.
+     */
+    public void playComputerTurns() {
+        if (computerTurn != null || model.isGameOver()
+                || !(model.getCurrentPlayer() instanceof ComputerPlayer computer)) {
+            return;
+        }
+        ScrabbleModel game = model;
+        computerTurn = new SwingWorker<>() {
+            @Override
+            protected Move doInBackground() {
+                return computer.chooseMove(game);
+            }
+
+            @Override
+            protected void done() {
+                computerTurn = null;
+                Move move = null;
+                try {
+                    move = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("Error choosing a move:" + e.getMessage()); // Skip the turn instead
+                }
+                if (game == model) {
+                    game.playComputerMove(move);
+                }
+                playComputerTurns(); // Carries on in the game now shown, if it was replaced meanwhile
+            }
+        };
+        computerTurn.execute();
+    }
 }
@@ -1,6 +1,7 @@
 import javax.swing.*;
 import java.io.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class ScrabbleModel implements Serializable {
     private List<Player> players;
@@ -8,26 +9,33 @@ public class ScrabbleModel implements Serializable {
     private Bag bag;
     private transient ScrabbleView view;
     private int currentPlayerIndex;
-    private HashSet<String> wordSet;
-    private Boolean firstMove, firstSave;;
-
-    // Undo and Redo stacks
-    private transient Stack<ScrabbleModel> undoStack = new Stack<>();
-    private transient Stack<ScrabbleModel> redoStack = new Stack<>();
+    private String tileSetId; // The tile set and dictionary the game is played with
+    private String lexiconId;
+    private transient Lexicon lexicon;
+    private Boolean firstMove;
+    private int scorelessTurns;
+    private int turnCount;
+    private transient GameState state; // Kept up to date by each move once asked for
+    private transient UnseenTracker unseen; // Likewise
+    private transient MoveJournal journal;
+
+    // Undo and Redo history, as records of what each step changed
+    private transient UndoHistory history = new UndoHistory();
 
     /**
      * Constructor for ScrabbleModel.
      * Initializes the board, bag, players list, and loads valid words from a file.
      */
     public ScrabbleModel(ScrabbleView view) {
-        board = new Board();
-        bag = new Bag();
+        TileSet tileSet = TileSet.getDefault();
+        board = new Board(tileSet);
+        bag = new Bag(tileSet);
         players = new ArrayList<>();
         this.view = view;
-        wordSet = new HashSet<>();
-        this.loadWordsFromFile();
+        tileSetId = tileSet.getId();
+        lexiconId = tileSet.getLexiconId();
+        lexicon = Dictionaries.get(lexiconId);
         firstMove = true;
-        firstSave = true;
         currentPlayerIndex = 0;
     }
 
@@ -40,27 +48,84 @@ public class ScrabbleModel implements Serializable {
         bag = new Bag(0);
         players = new ArrayList<>();
         this.view = null;
-        wordSet = new HashSet<>();
-        this.loadWordsFromFile();
+        tileSetId = board.getTileSet().getId();
+        lexiconId = board.getTileSet().getLexiconId();
+        lexicon = Dictionaries.get(lexiconId);
         firstMove = true;
-        firstSave = true;
         currentPlayerIndex = 0;
     }
 
     /**
-     * Saves the current state for undo functionality.
+     * Constructor for a ScrabbleModel read back from a save, with no view and an empty undo history.
+     * @param board the board, which is scored by the game's tile set.
+     * @param bag the bag the players draw from.
+     * @param players the players, in turn order.
+     * @param currentPlayerIndex the index of the player to move.
+     * @param firstMove true if no word has been played yet.
+     * @param scorelessTurns the number of scoreless turns in a row.
+     * @param turnCount the number of turns played so far.
+     * @param lexiconId the identifier of the dictionary words are checked against.
      */
-    public void saveState() {
-        try {
-            ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-            ObjectOutputStream out = new ObjectOutputStream(byteOut);
-            out.writeObject(this);
-            out.close();
-            undoStack.push((ScrabbleModel) deserialize(byteOut.toByteArray()));
-            redoStack.clear(); // Clear redo stack after a new move
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
-        }
+    ScrabbleModel(Board board, Bag bag, List<Player> players, int currentPlayerIndex, boolean firstMove,
+                  int scorelessTurns, int turnCount, String lexiconId) {
+        this.board = board;
+        this.bag = bag;
+        this.players = new ArrayList<>(players);
+        this.currentPlayerIndex = currentPlayerIndex;
+        this.firstMove = firstMove;
+        this.scorelessTurns = scorelessTurns;
+        this.turnCount = turnCount;
+        this.tileSetId = board.getTileSet().getId();
+        this.lexiconId = lexiconId;
+        this.lexicon = Dictionaries.get(lexiconId);
+    }
+
+    /**
+     * Returns the number of scoreless turns in a row, which ends the game once every player has had two.
+     * @return the number of scoreless turns.
+     */
+    public int getScorelessTurns() {
+        return scorelessTurns;
+    }
+
+    /**
+     * Returns the number of turns played so far, moves and skips alike, less those undone.
+     * @return the number of turns.
+     */
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * Retrieves the identifier of the dictionary words are checked against.
+     * @return the lexicon identifier.
+     */
+    public String getLexiconId() {
+        return lexiconId;
+    }
+
+    /**
+     * Retrieves the identifier of the tile set the game is played with.
+     * @return the tile set identifier.
+     */
+    public String getTileSetId() {
+        return tileSetId;
+    }
+
+    /**
+     * Retrieves the tile set the game is played with, which scores its tiles and filled its bag.
+     * @return the shared tile set.
+     */
+    public TileSet getTileSet() {
+        return TileSet.get(tileSetId);
+    }
+
+    /**
+     * Adds a step to the undo history, which makes the steps that were undone before it impossible to redo.
+     * @param entry the record of the step.
+     */
+    private void record(HistoryEntry entry) {
+        history.record(entry);
     }
 
     /**
@@ -68,17 +133,18 @@ public class ScrabbleModel implements Serializable {
      * @return True if undo was successful, false otherwise.
      */
     public boolean undo() {
-        if (!undoStack.isEmpty()) {
-            try {
-                redoStack.push(cloneState());
-                ScrabbleModel previousState = undoStack.pop();
-                restoreState(previousState);
-                return true;
-            } catch (IOException | ClassNotFoundException e) {
-                e.printStackTrace();
-            }
+        HistoryEntry entry = history.takeUndo();
+        if (entry == null) {
+            return false;
         }
-        return false;
+        if (entry instanceof MoveRecord move) {
+            undoTurn(move);
+        } else {
+            swapGame((ResetRecord) entry);
+        }
+        history.pushRedo(entry);
+        checkpoint();
+        return true;
     }
 
     /**
@@ -86,101 +152,209 @@ public class ScrabbleModel implements Serializable {
      * @return True if redo was successful, false otherwise.
      */
     public boolean redo() {
-        if (!redoStack.isEmpty()) {
-            try {
-                undoStack.push(cloneState());
-                ScrabbleModel nextState = redoStack.pop();
-                restoreState(nextState);
-                return true;
-            } catch (IOException | ClassNotFoundException e) {
-                e.printStackTrace();
+        HistoryEntry entry = history.takeRedo();
+        if (entry == null) {
+            return false;
+        }
+        if (entry instanceof MoveRecord move) {
+            currentPlayerIndex = move.getPlayerIndex();
+            entry = move.getResult() == null ? skipTurn() : applyMove(move.getResult());
+        } else {
+            swapGame((ResetRecord) entry);
+        }
+        history.pushUndo(entry);
+        checkpoint();
+        return true;
+    }
+
+    /**
+     * Reverses a turn: the tiles drawn go back on top of the bag, the placed tiles go back into the hand
+     * where they were, and the score and turn are restored.
+     * @param record the record of the turn, which must be the last one played.
+     */
+    private void undoTurn(MoveRecord record) {
+        Player player = players.get(record.getPlayerIndex());
+        MoveResult result = record.getResult();
+        if (result != null) {
+            List<Tile> hand = player.getHand();
+            for (int i = 0; i < record.getDrawn(); i++) {
+                bag.returnTile(hand.removeLast());
             }
+            int dx = result.getDirection() == 'D' ? 0 : 1;
+            int dy = result.getDirection() == 'D' ? 1 : 0;
+            for (int i = result.getTilesPlaced() - 1; i >= 0; i--) {
+                int index = result.getPlacedIndex(i);
+                board.removeLetter(result.getX() + dx * index, result.getY() + dy * index);
+                Tile tile = record.getTile(i);
+                tile.setTileChar(record.getLetter(i));
+                if (unseen != null) {
+                    unseen.returned(tile);
+                }
+                hand.add(record.getHandIndex(i), tile);
+            }
+            player.updateScore(-result.getScore());
         }
-        return false;
+        state = record.getStateBefore();
+        currentPlayerIndex = record.getPlayerIndex();
+        firstMove = record.isFirstMove();
+        scorelessTurns = record.getScorelessTurns();
+        turnCount--;
     }
 
     /**
-     * Clones the current state.
-     * @return A deep copy of the current ScrabbleModel state.
+     * Exchanges the game with the one held by a reset record. Undoing a reset brings back the game it replaced,
+     * and redoing it brings back the new game, so the record only ever holds references to the other game.
+     * @param reset the record of the reset.
      */
-    private ScrabbleModel cloneState() throws IOException, ClassNotFoundException {
-        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
-        ObjectOutputStream out = new ObjectOutputStream(byteOut);
-        out.writeObject(this);
-        out.close();
+    private void swapGame(ResetRecord reset) {
+        List<Player> players = this.players;
+        Board board = this.board;
+        Bag bag = this.bag;
+        boolean firstMove = this.firstMove;
+        int scorelessTurns = this.scorelessTurns;
+        int turnCount = this.turnCount;
+        this.players = reset.players;
+        this.board = reset.board;
+        this.bag = reset.bag;
+        this.firstMove = reset.firstMove;
+        this.scorelessTurns = reset.scorelessTurns;
+        this.turnCount = reset.turnCount;
+        reset.players = players;
+        reset.board = board;
+        reset.bag = bag;
+        reset.firstMove = firstMove;
+        reset.scorelessTurns = scorelessTurns;
+        reset.turnCount = turnCount;
+        state = null;
+        unseen = null;
+    }
 
-        return (ScrabbleModel) deserialize(byteOut.toByteArray());
+    /**
+     * Sets the journal every move and skip is written to, starting it with a checkpoint of the game.
+     * @param journal the journal, or null to stop journaling.
+     */
+    public void setJournal(MoveJournal journal) {
+        this.journal = journal;
+        checkpoint();
     }
 
     /**
-     * Restores the state from a given ScrabbleModel.
-     * @param state The state to restore.
+     * Writes a checkpoint to the journal, for a change that cannot be replayed as a move.
      */
-    private void restoreState(ScrabbleModel state) {
-        this.players = state.players;
-        this.board = state.board;
-        this.bag = state.bag;
-        if (this.view != null) {
-            this.view = this.view; // Keep existing view
-        } else {
-            this.view = state.view;
+    private void checkpoint() {
+        if (journal != null) {
+            journal.checkpoint(this);
         }
-        this.currentPlayerIndex = state.currentPlayerIndex;
-        this.wordSet = state.wordSet;
-        this.firstMove = state.firstMove;
-        this.firstSave = state.firstSave;
     }
 
     /**
-     * Deserialize a ScrabbleModel from a byte array.
-     * @param data The serialized state as a byte array.
-     * @return The deserialized ScrabbleModel.
-     * @throws IOException If deserialization fails.
-     * @throws ClassNotFoundException If the class cannot be found.
+     * Changes the premium layout of the board, which is only allowed before the first move.
+     * @param fileName the name of the layout file in 'src/boardLayouts'.
+     * @return true if the layout was changed, false if a move has already been made.
      */
-    private Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
-        ByteArrayInputStream byteIn = new ByteArrayInputStream(data);
-        ObjectInputStream in = new ObjectInputStream(byteIn);
-        Object obj = in.readObject();
-        in.close();
-        return obj;
+    public boolean setLayout(String fileName) {
+        if (!isFirst()) {
+            return false; // Moves already made were scored on the current layout
+        }
+        board.setMultiplier(fileName);
+        state = null;
+        checkpoint();
+        return true;
     }
 
-    public void setView(ScrabbleView view){
-        this.view = view;
+    /**
+     * Retrieves the undo history, whose budget and memory use can be inspected.
+     * @return the history.
+     */
+    public UndoHistory getHistory() {
+        return history;
     }
 
     /**
-     * Loads valid words from a file into a HashSet for fast lookup.
-     * The words are expected to be in "src/scrabble.txt".
+     * Replaces the undo history, for example with one of a different budget. The steps already recorded are lost.
+     * @param history the new, empty history.
      */
-    private void loadWordsFromFile() {
-        File file = new File("src/scrabble.txt");
-        Scanner scanner;
-        try {
-            scanner = new Scanner(file);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
+    public void setHistory(UndoHistory history) {
+        this.history.clear();
+        this.history = history;
+    }
+
+    /**
+     * The undo history entry for a reset game, holding the game on the other side of the reset.
+     */
+    private static class ResetRecord implements HistoryEntry {
+        private List<Player> players;
+        private Board board;
+        private Bag bag;
+        private boolean firstMove;
+        private int scorelessTurns;
+        private int turnCount;
+        private final long size;
+
+        ResetRecord(List<Player> players, Board board, Bag bag, boolean firstMove, int scorelessTurns,
+                    int turnCount) {
+            this.players = players;
+            this.board = board;
+            this.bag = bag;
+            this.firstMove = firstMove;
+            this.scorelessTurns = scorelessTurns;
+            this.turnCount = turnCount;
+            // The board's arrays, and every tile in the bag and the hands, each with its list slot.
+            // Fixed when recorded, as swapping games must not change what the history has counted.
+            long estimate = 8192 + bag.getTileCount() * 24L;
+            for (Player player : players) {
+                estimate += 64 + player.handSize() * 24L;
+            }
+            this.size = estimate;
         }
 
-        while (scanner.hasNextLine()) {
-            wordSet.add(scanner.nextLine().trim()); // Add each word to the set after trimming whitespace
+        @Override
+        public long estimateSize() {
+            return size;
         }
+    }
+
+    /**
+     * Re-attaches the shared lexicon and fresh undo history after deserialization,
+     * since neither is written with the model.
+     * @param in the stream to read from.
+     * @throws IOException If deserialization fails.
+     * @throws ClassNotFoundException If a class cannot be found.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        lexicon = Dictionaries.get(lexiconId);
+        history = new UndoHistory();
+    }
 
-        scanner.close();
+    public void setView(ScrabbleView view){
+        this.view = view;
+    }
+
+    /**
+     * Retrieves the shared lexicon used to validate words.
+     * @return the lexicon.
+     */
+    public Lexicon getLexicon() {
+        if (lexicon == null) {
+            lexicon = Dictionaries.get(lexiconId);
+        }
+        return lexicon;
     }
 
     /**
      * Checks if a given word exists in the set of valid Scrabble words.
+     * The tile letters are walked straight through the lexicon without building a string.
      * @param word the word to be checked.
      * @return true if the word exists, false otherwise.
      */
     public boolean isWord(List<Tile> word) {
-        StringBuilder stringWord = new StringBuilder();
-        for (Tile tile : word){
-            stringWord.append(tile.getTileChar());
+        Lexicon lexicon = getLexicon();
+        int node = lexicon.root();
+        for (int i = 0; i < word.size() && node != Lexicon.NONE; i++) {
+            node = lexicon.child(node, word.get(i).getTileChar());
         }
-        return wordSet.contains(stringWord.toString().toLowerCase());
+        return node != Lexicon.NONE && lexicon.isTerminal(node);
     }
 
     /**
@@ -189,6 +363,17 @@ public class ScrabbleModel implements Serializable {
      */
     public void addPlayer(String name) {
         players.add(new Player(name, bag));
+        state = null; // The snapshot has no rack for the new player
+    }
+
+    /**
+     * Adds a computer opponent to the game.
+     * @param name the name of the player to be added.
+     * @param moveBudgetMillis the most time, in milliseconds, the player may spend choosing each move.
+     */
+    public void addComputerPlayer(String name, long moveBudgetMillis) {
+        players.add(new ComputerPlayer(name, bag, moveBudgetMillis));
+        state = null; // The snapshot has no rack for the new player
     }
 
 
@@ -196,6 +381,7 @@ public class ScrabbleModel implements Serializable {
     /**
      * Checks if a word can be placed on the board at the specified coordinates
      * in the given direction without violating any game rules.
+     * Like every check on the model, this never changes the game.
      * @param x the starting x-coordinate of the word.
      * @param y the starting y-coordinate of the word.
      * @param direction the direction to place the word ('D' for down, 'R' for right).
@@ -203,7 +389,7 @@ public class ScrabbleModel implements Serializable {
      * @return true if the word can be placed, false otherwise.
      */
     public boolean isPossible(int x, int y, char direction, List<Tile> word) {
-        HashMap<Character, Integer> charMap = new HashMap<>();
+        int[] needed = new int[TileSet.BLANK + 1];
         int xIndex;
         int yIndex;
 
@@ -225,11 +411,14 @@ public class ScrabbleModel implements Serializable {
                 xIndex = x + i;
             }
             if (board.isEmpty(xIndex, yIndex)) {
-                charMap.put(c.getTileChar(), charMap.getOrDefault(c.getTileChar(), 0) + 1);
+                int letter = c.isBlank() ? TileSet.BLANK : Lexicon.letterIndex(c.getTileChar());
+                if (letter < 0) {
+                    return false;
+                }
+                needed[letter]++;
 
                 // Check adjacent tiles
-                if (!board.isEmpty(xIndex + 1, yIndex) || !board.isEmpty(xIndex - 1, yIndex) ||
-                        !board.isEmpty(xIndex, yIndex + 1)  || !board.isEmpty(xIndex, yIndex - 1) ){
+                if (board.touches(xIndex, yIndex)) {
                     isTouching = true;
                 }
 
@@ -239,11 +428,9 @@ public class ScrabbleModel implements Serializable {
             else {isTouching = true;}
         }
 
-        // Check if the player has enough of each character in their hand
-        for (char c : charMap.keySet()) {
-            if (charMap.get(c) > players.get(currentPlayerIndex).numInHand(c)) {
-                return false;
-            }
+        // Check if the player has the tiles to place, with blanks standing in for missing letters
+        if (!getCurrentPlayer().getRack().canMake(needed)) {
+            return false;
         }
 
         // Handle special case for the first move (must include the center tile)
@@ -257,8 +444,6 @@ public class ScrabbleModel implements Serializable {
                     xIndex = x + i;
                 }
                 if (xIndex == 7 && yIndex == 7) {
-                    saveState();
-                    firstMove = false;
                     return true;
                 }
             }
@@ -276,127 +461,58 @@ public class ScrabbleModel implements Serializable {
      * @return true if the word can be placed, false otherwise.
      */
     public boolean isValid(int x, int y, char direction, List<Tile> word) {
-        // Check if the word can be placed
-        if (!isPossible(x, y, direction, word)) {
-            return false;
-        }
-
-        // Validate all affected words on the board
-        List<List<Tile>> effectedWords = getEffectedWords(x, y, direction, word);
-        for (List<Tile> effectedWord : effectedWords) {
-            if (!isWord(effectedWord)) {
-                return false;
-            }
-        }
-        return true;
+        return evaluateMove(x, y, direction, word).isValid();
     }
 
     /**
-     * Retrieves all words affected by placing a word on the board.
-     * @param x the starting x-coordinate.
-     * @param y the starting y-coordinate.
-     * @param direction the direction of the word.
-     * @param word the word being placed.
-     * @return a list of affected words.
+     * Checks and scores a word for the current player in a single pass, without changing the game.
+     * @param x the starting x-coordinate of the word.
+     * @param y the starting y-coordinate of the word.
+     * @param direction the direction to place the word ('D' for down, 'R' for right).
+     * @param word the word to be placed.
+     * @return the result of the move, which makeMove commits if it is valid.
      */
-    private List<List<Tile>> getEffectedWords(int x, int y, char direction, List<Tile> word) {
-        int xIndex;
-        int yIndex;
-        List<List<Tile>> wordList = new ArrayList<>();
-
-        // For each character in the word, find new words formed by adjacent tiles
-        for (int i = 0; i < word.size(); i++) {
-            Tile c = word.get(i);
-            if (direction == 'D') {
-                yIndex = y + i;
-                xIndex = x;
-                if (board.isEmpty(xIndex, yIndex)) {
-                    wordList.add(getWord(xIndex, yIndex, 'R', c));
-                }
-            } else {
-                yIndex = y;
-                xIndex = x + i;
-                if (board.isEmpty(xIndex, yIndex)) {
-                    wordList.add(getWord(xIndex, yIndex, 'D', c));
-                }
-            }
-        }
-        return wordList;
+    public MoveResult evaluateMove(int x, int y, char direction, List<Tile> word) {
+        return evaluateMove(getCurrentPlayer(), x, y, direction, word);
     }
 
     /**
-     * Retrieves the complete word formed in a given direction from the board.
-     * @param x the x-coordinate of the starting position.
-     * @param y the y-coordinate of the starting position.
-     * @param direction the direction to search ('D' for down, 'R' for right).
-     * @param c the character being added to the board.
-     * @return the complete word as a string.
+     * Checks and scores a word for any player as if it were their turn, without changing the game.
+     * @param player the player whose hand the tiles come from.
+     * @param x the starting x-coordinate of the word.
+     * @param y the starting y-coordinate of the word.
+     * @param direction the direction to place the word ('D' for down, 'R' for right).
+     * @param word the word to be placed.
+     * @return the result of the move.
      */
-    private List<Tile> getWord(int x, int y, char direction, Tile c) {
-        int xIndex;
-        int yIndex;
-        List<Tile> word = new ArrayList<>();
-        word.add(c);
-
-        // Search for adjacent tiles to complete the word in the specified direction
-        if (direction == 'D') {
-            yIndex = y + 1; // Search downward
-            xIndex = x;
-            while (!board.isEmpty(xIndex, yIndex)) {
-                // Add tiles below the starting position to the word
-                word.add(board.getTile(xIndex, yIndex));
-                yIndex++;
-            }
-            yIndex = y - 1; // Search upward
-            while (!board.isEmpty(xIndex, yIndex)) {
-                // Add tiles above the starting position to the word
-                word.addFirst(board.getTile(xIndex, yIndex));
-                yIndex--;
-            }
-        } else {
-            yIndex = y;
-            xIndex = x + 1; // Search to the right
-            while (!board.isEmpty(xIndex, yIndex)) {
-                // Add tiles to the right of the starting position to the word
-                word.add(board.getTile(xIndex, yIndex));
-                xIndex++;
-            }
-            xIndex = x - 1; // Search to the left
-            while (!board.isEmpty(xIndex, yIndex)) {
-                // Add tiles to the left of the starting position to the word
-                word.addFirst(board.getTile(xIndex, yIndex));
-                xIndex--;
-            }
-        }
-
-        return word;
+    public MoveResult evaluateMove(Player player, int x, int y, char direction, List<Tile> word) {
+        return new MoveValidator(getLexicon()).validate(board, player.getHand(), firstMove, x, y, direction, word);
     }
 
     /**
-     * Scores a word and updates the current player's score.
-     * The score is calculated based on the tiles in the word, an additional base score,
-     * and a multiplier applied to the total score.
-     *
-     * @param word The word to score, represented as a list of tiles.
-     * @param multiplier The multiplier to apply to the word's total score (e.g., for double/triple word scores).
-     * @param additionalScore An additional base score to include in the calculation (e.g., bonus points).
+     * Checks and scores a generated move for the current player, without changing the game.
+     * Blanks in the move are matched against blank tiles in the hand without assigning them a letter.
+     * @param move the move to check.
+     * @return the result of the move.
      */
-    private void scoreWord(List<Tile> word, int multiplier, int additionalScore) {
-        int score = additionalScore;
-        for (Tile c : word) {
-            score += Tile.getTileScore(c);
-        }
-        if (word.size() > 1){
-        getCurrentPlayer().updateScore(score*multiplier);}
+    public MoveResult evaluateMove(Move move) {
+        return evaluateMove(move.getX(), move.getY(), move.getDirection(), move.toTiles(board));
     }
 
     /**
-     * Updates the current player's score by adding a specified value.
-     *
-     * @param score The value to add to the current player's total score.
+     * Checks and scores many candidate words for the current player, without changing the game.
+     * @param moves the generated moves to check.
+     * @return the result of each move, in the same order.
      */
-    private void updatePlayerScore(int score){
-        getCurrentPlayer().updateScore(score);
+    public List<MoveResult> evaluateMoves(List<Move> moves) {
+        MoveValidator validator = new MoveValidator(getLexicon());
+        List<Tile> hand = getCurrentPlayer().getHand();
+        List<MoveResult> results = new ArrayList<>(moves.size());
+        for (Move move : moves) {
+            results.add(validator.validate(board, hand, firstMove, move.getX(), move.getY(), move.getDirection(),
+                    move.toTiles(board)));
+        }
+        return results;
     }
 
     /**
@@ -408,98 +524,174 @@ public class ScrabbleModel implements Serializable {
      * @return true if the move is successful, false otherwise.
      */
     public boolean makeMove(int x, int y, char direction, List<Tile> word) {
-
-        int xIndex;
-        int yIndex;
-
-        // Determine the opposite direction for scoring perpendicular words
-        char oppositeDirection = direction == 'D' ? 'R': 'D';
-
-        int multiplier = 1;
-        int wordScore = 0;
-
-        // Check if the move is valid
-        if (!isValid(x, y, direction, word)) {
+        MoveResult result = evaluateMove(x, y, direction, word);
+        if (!result.isValid()) {
             return false;
         }
-        if(!firstSave){
-            saveState();
-        }
-        else{
-            firstSave = false;
+        commitMove(result);
+        return true;
+    }
+
+    /**
+     * Commits a valid move: places its tiles from the current player's hand, adds its score,
+     * and passes the turn to the next player.
+     * @param result the result of the move, from evaluateMove on the current state.
+     */
+    private void commitMove(MoveResult result) {
+        record(applyMove(result));
+        if (journal != null) {
+            journal.move(this, result);
         }
+        if (view != null) {
+            view.updateView();}
+    }
 
-        // Place the word on the board and update the player's hand
-        for (int i = 0; i < word.size(); i++) {
-            Tile c = word.get(i); // Current tile to place
-            if (direction == 'D') {
-                yIndex = y + i; // Move down for vertical placement
-                xIndex = x;
-            } else {
-                yIndex = y;
-                xIndex = x + i; // Move right for horizontal placement
+    /**
+     * Plays a valid move for the current player and records what it changed.
+     * @param result the result of the move, from evaluateMove on the current state.
+     * @return the record of the turn.
+     */
+    private MoveRecord applyMove(MoveResult result) {
+        Player player = getCurrentPlayer();
+        MoveRecord record = new MoveRecord(currentPlayerIndex, firstMove, scorelessTurns, result);
+        GameState before = state;
+        if (state != null) {
+            state = state.play(result);
+        }
+        record.setStateBefore(before, state);
+        firstMove = false;
+
+        // Place the new tiles on the board, taking them from the player's hand
+        int dx = result.getDirection() == 'D' ? 0 : 1;
+        int dy = result.getDirection() == 'D' ? 1 : 0;
+        List<Tile> hand = player.getHand();
+        for (int i = 0; i < result.getTilesPlaced(); i++) {
+            int index = result.getPlacedIndex(i);
+            Tile played = result.getWord().get(index);
+            int handIndex = player.indexOfTile(played);
+            if (handIndex < 0) {
+                // A blank given as a new tile is played with any blank from the hand
+                handIndex = player.indexOfBlank();
             }
-            if (board.isEmpty(xIndex, yIndex)) {
-                // if empty, place the tile
-                Tile tile = getCurrentPlayer().popTile(c);
-                board.addLetter(xIndex, yIndex, tile);
-                getCurrentPlayer().refillHand();
-
-                // Check for special score multipliers at the location
-                String m = board.getMultiplier(xIndex, yIndex);
-                if (!m.equals("normal")){
-                    // Apply scoring rules based on multiplier type
-                    switch (m){
-                        // Apply scoring rules based on multiplier type
-                        case "DL" -> {
-                            wordScore += 2 * Tile.getTileScore(tile);
-                            scoreWord(getWord(xIndex, yIndex, oppositeDirection, tile), 1, Tile.getTileScore(tile));
-                        }
-                        case "TL" -> {
-                            wordScore += 3 * Tile.getTileScore(tile);
-                            scoreWord(getWord(xIndex, yIndex, oppositeDirection, tile), 1, 2 * Tile.getTileScore(tile));
-                        }
-                        case "DW" -> {
-                            multiplier = multiplier * 2;
-                            wordScore += Tile.getTileScore(tile);
-                            scoreWord(getWord(xIndex, yIndex, oppositeDirection, tile), 2, 0);
-                        }
-                        case "TW" -> {
-                            multiplier = multiplier * 3;
-                            wordScore += Tile.getTileScore(tile);
-                            scoreWord(getWord(xIndex, yIndex, oppositeDirection, tile), 3, 0);
-                        }
-                    }
-                } else {
-                    // No special multiplier; add the tile's base score
-                    wordScore += Tile.getTileScore(tile);
-                    scoreWord(getWord(xIndex, yIndex, oppositeDirection, tile), 1, 0);
-                }
-            } else {
-                // The board cell is already occupied; add the score of the existing tile
-                wordScore += Tile.getTileScore(board.getTile(xIndex, yIndex));
+            Tile tile = hand.remove(handIndex);
+            record.setTile(i, tile, handIndex);
+            tile.setTileChar(played.getTileChar());
+            board.addLetter(result.getX() + dx * index, result.getY() + dy * index, tile);
+            if (unseen != null) {
+                unseen.placed(tile);
             }
         }
+        int held = hand.size();
+        player.refillHand();
+        record.setDrawn(hand.size() - held);
 
         // Update the player's score and switch to the next player
-
-        updatePlayerScore(wordScore*multiplier);
+        player.updateScore(result.getScore());
+        scorelessTurns = 0;
+        turnCount++;
         currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
-        if (view != null) {
-            view.updateView();}
-        return true;
+        return record;
     }
 
     /**
      * Updates currentPlayerIndex
      */
     public void skip(){
-        currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+        record(skipTurn());
+        if (journal != null) {
+            journal.skip(this);
+        }
         if (view != null) {
             view.updateView();
         }
     }
 
+    /**
+     * Skips the current player's turn and records it.
+     * @return the record of the turn.
+     */
+    private MoveRecord skipTurn() {
+        MoveRecord record = new MoveRecord(currentPlayerIndex, firstMove, scorelessTurns, null);
+        GameState before = state;
+        if (state != null) {
+            state = state.skip();
+        }
+        record.setStateBefore(before, state);
+        scorelessTurns++;
+        turnCount++;
+        currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+        return record;
+    }
+
+    /**
+     * Makes a generated move for the current player.
+     * Blanks in the move are played with blank tiles from the player's hand, set to the letter they stand for.
+     * @param move the move to make.
+     * @return true if the move is successful, false otherwise.
+     */
+    public boolean playMove(Move move) {
+        return makeMove(move.getX(), move.getY(), move.getDirection(), move.toTiles(board));
+    }
+
+    /**
+     * Plays the current player's turn if it is a computer player: its chosen move, or a skip if it has none.
+     * @return true if a computer turn was played, false if the current player is not a computer.
+     */
+    public boolean playComputerTurn() {
+        if (!(getCurrentPlayer() instanceof ComputerPlayer computer)) {
+            return false;
+        }
+        playComputerMove(computer.chooseMove(this));
+        return true;
+    }
+
+    /**
+     * Plays a move chosen by the current computer player, or skips its turn if it has none.
+     * @param move the move from ComputerPlayer.chooseMove, or null if it found none.
+     */
+    public void playComputerMove(Move move) {
+        if (move == null || !playMove(move)) {
+            skip();
+        }
+    }
+
+    /**
+     * Plays computer turns until it is a human player's turn or the game is over.
+     */
+    public void playComputerTurns() {
+        while (!isGameOver() && playComputerTurn()) {
+            // Keep going until a human is to play
+        }
+    }
+
+    /**
+     * Finds the best move for the current player, as a computer player would.
+     * @param budgetMillis the most time, in milliseconds, to spend searching.
+     * @return the suggested move, or null if there is no legal move or skipping is best.
+     */
+    public Move getHint(long budgetMillis) {
+        return ComputerPlayer.findBestMove(this, getCurrentPlayer(), System.nanoTime() + budgetMillis * 1_000_000);
+    }
+
+    /**
+     * Checks if the game is over: a player has used all their tiles with the bag empty,
+     * or every player has skipped twice in a row.
+     * @return true if the game is over.
+     */
+    public boolean isGameOver() {
+        if (scorelessTurns >= 2 * players.size()) {
+            return true;
+        }
+        if (bag.getTileCount() == 0) {
+            for (Player player : players) {
+                if (player.handSize() == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Retrieves the current player in the game.
      * @return the current player.
@@ -516,6 +708,48 @@ public class ScrabbleModel implements Serializable {
         return board;
     }
 
+    /**
+     * Retrieves the current position as an immutable state, which stays valid as the game goes on
+     * and may be handed to other threads. Once asked for, the state is carried forward by each move,
+     * so later calls cost nothing.
+     * @return the current state.
+     */
+    public GameState getState() {
+        if (state == null) {
+            state = GameState.of(board, bag, players, currentPlayerIndex, firstMove, scorelessTurns);
+        }
+        return state;
+    }
+
+    /**
+     * Retrieves the bag of tiles.
+     * @return the bag.
+     */
+    public Bag getBag() {
+        return bag;
+    }
+
+    /**
+     * Counts the tiles a player cannot see: those in the bag and in the other players' hands.
+     * @param viewer the player whose view is wanted.
+     * @return the count of each letter, with blanks counted at index 26.
+     */
+    public int[] getUnseenCounts(Player viewer) {
+        return getUnseenTracker().getUnseenCounts(viewer);
+    }
+
+    /**
+     * Retrieves the tracker of the tiles each player cannot see. Once asked for, the tracker is kept
+     * up to date by each move and undo, so later calls cost nothing.
+     * @return the tracker.
+     */
+    public UnseenTracker getUnseenTracker() {
+        if (unseen == null) {
+            unseen = new UnseenTracker(bag, players);
+        }
+        return unseen;
+    }
+
     /**
      * Retrieves the player list.
      * @return the player list.
@@ -534,21 +768,32 @@ public class ScrabbleModel implements Serializable {
 
     /**
      * Resets the game by reinitializing the board, bag, and players.
+     * The reset can be undone, which brings back the game it replaced.
      */
     public void resetGame() {
         if (view != null) {
             this.view.showEnd();
         }
-        bag = new Bag();
+        record(new ResetRecord(players, board, bag, firstMove, scorelessTurns, turnCount));
+        state = null;
+        unseen = null;
+        bag = new Bag(getTileSet());
         firstMove = true;
+        scorelessTurns = 0;
+        turnCount = 0;
 
         // Reset the players while retaining their names
         List<Player> holder = new ArrayList<>();
         for (Player player : players) {
-            holder.add(new Player(player.getName(), bag));
+            if (player instanceof ComputerPlayer computer) {
+                holder.add(new ComputerPlayer(player.getName(), bag, computer.getMoveBudgetMillis()));
+            } else {
+                holder.add(new Player(player.getName(), bag));
+            }
         }
         players = holder;
-        board = new Board();
+        board = new Board(getTileSet());
+        checkpoint();
         if (view != null) {
             view.updateView();
         }
@@ -561,19 +806,7 @@ public class ScrabbleModel implements Serializable {
      */
     public void saveState(String fileName) {
         try {
-            String directoryPath = "src/saves";
-
-            File directory = new File(directoryPath);
-
-            if (!directory.exists()) {
-                directory.mkdirs();
-            }
-
-            FileOutputStream file = new FileOutputStream(fileName);
-            ObjectOutputStream out = new ObjectOutputStream(file);
-            out.writeObject(this);
-            out.close();
-            file.close();
+            SaveWriter.write(new File(fileName).toPath(), SaveFormat.toBytes(this));
         } catch (IOException e) {
             if (view != null) {
                 JOptionPane.showMessageDialog(view.getFrame(), "Error saving game state!:" + e.getMessage());
@@ -583,6 +816,35 @@ public class ScrabbleModel implements Serializable {
         }
     }
 
+    /**
+     * Saves the game state to a specified file without waiting for the disk. The game is captured before
+     * this returns, so it may go on changing while the save is written in the background.
+     *
+     * @param fileName The name of the file where the game state should be saved.
+     * @param onSaved Called on the event dispatch thread once the save is on disk,
+     *                with null, or the exception if the save failed.
+     */
+    public void saveStateAsync(String fileName, Consumer<IOException> onSaved) {
+        SaveWriter.writeAsync(new File(fileName).toPath(), SaveFormat.toBytes(this), onSaved);
+    }
+
+    /**
+     * Reads a saved game. Only saves in SaveFormat can be read; games saved by Java serialization before it
+     * depend on the layout of classes that have since changed, so they are reported as unreadable.
+     *
+     * @param file the save file.
+     * @return the saved game, with no view.
+     * @throws IOException If the file cannot be read or is not in SaveFormat.
+     */
+    public static ScrabbleModel readSave(File file) throws IOException {
+        if (!SaveFormat.isSaveFile(file)) {
+            throw new IOException(file.getName() + " was saved by an older version of the game and cannot be loaded");
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return SaveFormat.read(in);
+        }
+    }
+
     /**
      * Loads the game state from a specified file and updates the view if it exists.
      *
@@ -590,9 +852,7 @@ public class ScrabbleModel implements Serializable {
      */
     public void loadState (String fileName) {
         try {
-            FileInputStream file = new FileInputStream(fileName);
-            ObjectInputStream in = new ObjectInputStream(file);
-            ScrabbleModel model = (ScrabbleModel) in.readObject();
+            ScrabbleModel model = readSave(new File(fileName));
             if (view != null) {
                 model.setView(view);
                 view.setModel(model);
@@ -601,7 +861,7 @@ public class ScrabbleModel implements Serializable {
             else {
                 System.out.println("Should not be loading game state with no view...");
             }
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             if (view != null) {
                 JOptionPane.showMessageDialog(view.getFrame(), "Error loading game state!:" + e.getMessage());
             } else {
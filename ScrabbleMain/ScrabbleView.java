@@ -1,10 +1,13 @@
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
 public class ScrabbleView extends JFrame {
+    private static final long COMPUTER_MOVE_MILLIS = 500; // Time budget for each computer move
+    private static final File JOURNAL_DIRECTORY = new File("src/journals"); // One journal per game, kept once it is over
     ScrabbleModel model;
     ScrabbleController sc;
     private final JButton[][] boardCells;
@@ -13,8 +16,10 @@ public class ScrabbleView extends JFrame {
     private final JLabel scoreLabel;
     private String scoreStr;
     private List<String> layoutNames;
-    private List<String> saveNames;
+    private final SaveCatalog saveCatalog = new SaveCatalog(new File("src/saves"));
     private JMenu loadMenu, boardMenu;
+    private MoveJournal journal;
+    private File journalFile; // The journal of the game being played
 
     /**
      * Constructor for ScrabbleView.
@@ -26,16 +31,25 @@ public class ScrabbleView extends JFrame {
         this.setTitle("Scrabble");
         this.setLayout(new BorderLayout());
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                finishWrites(); // Runs before the frame exits
+            }
+        });
         this.setSize(1000, 1000);
 
         layoutNames = new ArrayList<>();
-        saveNames = new ArrayList<>();
 
         model = new ScrabbleModel(this);
         sc = new ScrabbleController(this.model, this);
 
-        // Get number of players and add to model
-        this.setPlayers();
+        // Resume the game that was being played, or get number of players and add to model
+        boolean resumed = resumeGame();
+        if (!resumed) {
+            this.setPlayers();
+        }
+        startJournal(resumed);
 
         // Initialize panel to contain the board
         JPanel boardPanel = new JPanel(new GridLayout(15, 15));
@@ -121,12 +135,17 @@ public class ScrabbleView extends JFrame {
         mouseListener(null, null, resetGameItem, 2); // Set hover border to pink
         JMenuItem helpItem = new JMenuItem("Help");
         mouseListener(null, null, helpItem, 2); // Set hover border to pink
+        JMenuItem hintItem = new JMenuItem("Hint");
+        mouseListener(null, null, hintItem, 2); // Set hover border to pink
         JMenuItem saveItem = new JMenuItem("Save game");
         mouseListener(null, null, saveItem, 2); // Set hover border to pink
 
         helpItem.setActionCommand("HELP");
         helpItem.addActionListener(sc); // Help action
 
+        hintItem.setActionCommand("HINT");
+        hintItem.addActionListener(sc); // Hint action
+
         resetGameSPItem.setActionCommand("RGSP");
         resetGameSPItem.addActionListener(sc); // Restart game with same players actionListener
 
@@ -140,6 +159,7 @@ public class ScrabbleView extends JFrame {
         gameMenu.add(resetGameItem);
         gameMenu.add(resetGameSPItem);
         gameMenu.add(helpItem);
+        gameMenu.add(hintItem);
         gameMenu.add(saveItem);
 
         // set up menu for the board layouts
@@ -171,6 +191,7 @@ public class ScrabbleView extends JFrame {
         setLocationRelativeTo(null); // Center frame on screen
         setVisible(true);
         this.updateView(); // Initial update for view
+        sc.playComputerTurns(); // A computer player may be first to move, or to move in the resumed game
     }
 
     /**
@@ -181,10 +202,20 @@ public class ScrabbleView extends JFrame {
         while (playerNum > 4 || playerNum < 1) {
             playerNum = Integer.parseInt(JOptionPane.showInputDialog(this, "Invalid number of players. Please state 1, 2, 3, or 4: "));
         }
-        for (int i = 0; i < playerNum; i++) {
+        int computerNum = Integer.parseInt(JOptionPane.showInputDialog(this,
+                "Enter number of AI players (0 - " + (playerNum - 1) + "): "));
+        while (computerNum > playerNum - 1 || computerNum < 0) {
+            computerNum = Integer.parseInt(JOptionPane.showInputDialog(this,
+                    "Invalid number of AI players. Please state 0 - " + (playerNum - 1) + ": "));
+        }
+        // Human players go first, so the game always starts on a human's turn
+        for (int i = 0; i < playerNum - computerNum; i++) {
             String name = JOptionPane.showInputDialog(this, "Enter player " + (i + 1) + "'s name: ");
             model.addPlayer(name);
         }
+        for (int i = 0; i < computerNum; i++) {
+            model.addComputerPlayer("Computer " + (i + 1), COMPUTER_MOVE_MILLIS);
+        }
     }
 
     /**
@@ -205,10 +236,7 @@ public class ScrabbleView extends JFrame {
     public void updateView() {
         Board board = this.model.getBoard();
 
-        if (!model.isFirst()) {
-            boardMenu.setEnabled(false);
-        }
-
+        boardMenu.setEnabled(model.isFirst()); // The layout can only be changed before the first move
 
         // Restore the board
         for (int i = 0; i < 15; i++) {
@@ -220,8 +248,7 @@ public class ScrabbleView extends JFrame {
                 }
                 else {
                     Tile tile = board.getTile(i, j);
-                    int score = Tile.getTileScore(tile);
-                    String path = "src/images/tile" + score + ".png";
+                    String path = model.getTileSet().getImagePath(tile);
                     boardCells[i][j].setIcon(new ImageIcon(path));
                     boardCells[i][j].setEnabled(false);
                     boardCells[i][j].setText(String.valueOf(board.getTile(i, j).getTileChar()).toUpperCase());
@@ -366,7 +393,7 @@ public class ScrabbleView extends JFrame {
                 To place a tile, select it from your hand then select the space on the board in which you'd like to place it.
                 You can remove a previously placed tile (in the same turn) by selecting it again from the board.
                 For the first move it must be on the coordinates 8 8, it doesn't have to begin there, as long as it passes through.
-                A player can skip their turn by clicking the 'Skip Turn' button.
+                A player can skip their turn by clicking the 'Skip Turn' button, or ask for a suggested move with 'Hint' in the 'Game' menu.
                 The game can be restarted with the current players or a brand new game by using the 'Game' menu.""");
 
     }
@@ -401,8 +428,7 @@ public class ScrabbleView extends JFrame {
      */
     public void addTempTile(Tile tile, int x, int y, int handIndex) {
         boardCells[x][y].setText(String.valueOf(tile.getTileChar()).toUpperCase());
-        int score = Tile.getTileScore(tile);
-        String path = "src/images/tile" + score + ".png";
+        String path = model.getTileSet().getImagePath(tile);
         ImageIcon Icon = new ImageIcon(path);
         boardCells[x][y].setIcon(Icon);
         handTiles[handIndex].setEnabled(false);
@@ -418,7 +444,79 @@ public class ScrabbleView extends JFrame {
         model = new ScrabbleModel(this);
         sc.setModel(model);
         this.setPlayers();
+        startJournal(false);
         this.updateView();
+        sc.playComputerTurns();
+    }
+
+    /**
+     * Offers to carry on the game in the latest journal, if it was left unfinished when the program last stopped.
+     * @return true if the game was rebuilt from the journal.
+     */
+    private boolean resumeGame() {
+        File latest = null;
+        File[] files = JOURNAL_DIRECTORY.listFiles((dir, name) -> name.endsWith(".journal"));
+        if (files != null) {
+            for (File file : files) {
+                if (latest == null || file.lastModified() > latest.lastModified()) {
+                    latest = file;
+                }
+            }
+        }
+        if (latest == null || !MoveJournal.canReplay(latest)) {
+            return false;
+        }
+        ScrabbleModel resumed;
+        try {
+            resumed = MoveJournal.replay(latest);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Error resuming game!:" + e.getMessage());
+            return false;
+        }
+        if (resumed.isGameOver() || JOptionPane.showConfirmDialog(this, "Resume the unfinished game?",
+                "Scrabble", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return false;
+        }
+        resumed.setView(this);
+        setModel(resumed);
+        journalFile = latest;
+        return true;
+    }
+
+    /**
+     * Writes out the journal and waits for saves still being written in the background,
+     * whose thread would otherwise be stopped part way when the game exits.
+     */
+    private void finishWrites() {
+        if (journal != null) {
+            journal.flush();
+        }
+        try {
+            SaveWriter.awaitWrites();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Opens the journal the game is written to as it is played.
+     * @param resumed true to carry on the journal the game was rebuilt from, false to start a new one,
+     *                leaving the journals of earlier games as they are.
+     */
+    private void startJournal(boolean resumed) {
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+            if (!resumed) {
+                journalFile = new File(JOURNAL_DIRECTORY, "game-" + System.currentTimeMillis() + ".journal");
+            }
+            journal = new MoveJournal(journalFile);
+            model.setJournal(journal);
+        } catch (IOException e) {
+            journal = null;
+            System.out.println("Error opening move journal:" + e.getMessage());
+        }
     }
 
     /**
@@ -431,31 +529,33 @@ public class ScrabbleView extends JFrame {
     public void setSpecialTiles(JButton button, int x, int y) {
         button.setText(" ");
         // Set up imageIcons for special tiles
-        if (model.getBoard().getMultiplier(x, y).equals("normal")) {
-            if (x == 7 && y == 7) {
-                ImageIcon centerIcon = new ImageIcon("src/images/centerTile.png");
-                boardCells[7][7].setIcon(centerIcon); // Highlight center tile for first move requirement
+        switch (model.getBoard().getPremium(x, y)) {
+            case NORMAL -> {
+                if (x == 7 && y == 7) {
+                    ImageIcon centerIcon = new ImageIcon("src/images/centerTile.png");
+                    boardCells[7][7].setIcon(centerIcon); // Highlight center tile for first move requirement
+                }
+                else {
+                    ImageIcon bTIcon = new ImageIcon("src/images/regularBoardTile.png");
+                    button.setIcon(bTIcon);
+                }
             }
-            else {
-                ImageIcon bTIcon = new ImageIcon("src/images/regularBoardTile.png");
-                button.setIcon(bTIcon);
+            case DL -> {
+                ImageIcon dLSIcon = new ImageIcon("src/images/doubleLetterScore.png");
+                button.setIcon(dLSIcon);
+            }
+            case TL -> {
+                ImageIcon tLSIcon = new ImageIcon("src/images/tripleLetterScore.png");
+                button.setIcon(tLSIcon);
+            }
+            case DW -> {
+                ImageIcon tLSIcon = new ImageIcon("src/images/doubleWordScore.png");
+                button.setIcon(tLSIcon);
+            }
+            case TW -> {
+                ImageIcon tLSIcon = new ImageIcon("src/images/tripleWordScore.png");
+                button.setIcon(tLSIcon);
             }
-        }
-        if (model.getBoard().getMultiplier(x, y).equals("DL")) {
-            ImageIcon dLSIcon = new ImageIcon("src/images/doubleLetterScore.png");
-            button.setIcon(dLSIcon);
-        }
-        if (model.getBoard().getMultiplier(x, y).equals("TL")) {
-            ImageIcon tLSIcon = new ImageIcon("src/images/tripleLetterScore.png");
-            button.setIcon(tLSIcon);
-        }
-        if (model.getBoard().getMultiplier(x, y).equals("DW")) {
-            ImageIcon tLSIcon = new ImageIcon("src/images/doubleWordScore.png");
-            button.setIcon(tLSIcon);
-        }
-        if (model.getBoard().getMultiplier(x, y).equals("TW")) {
-            ImageIcon tLSIcon = new ImageIcon("src/images/tripleWordScore.png");
-            button.setIcon(tLSIcon);
         }
     }
 
@@ -466,8 +566,7 @@ public class ScrabbleView extends JFrame {
         List<Tile> hand = model.getCurrentPlayer().getHand();
         for (int i = 0; i < model.getCurrentPlayer().getHand().size(); i++) {
             Tile tile = hand.get(i);
-            int score = Tile.getTileScore(tile);
-            String path = "src/images/tile" + score + ".png";
+            String path = model.getTileSet().getImagePath(tile);
             ImageIcon Icon = new ImageIcon(path);
             handTiles[i].setText(String.valueOf(tile.getTileChar()).toUpperCase());
             handTiles[i].setIcon(Icon);
@@ -479,6 +578,9 @@ public class ScrabbleView extends JFrame {
     public void setModel(ScrabbleModel model) {
         this.model = model;
         sc.setModel(model);
+        if (journal != null) {
+            startJournal(false); // A loaded game is journaled apart from the game it replaces
+        }
     }
 
     private void getBoardLayouts() {
@@ -501,34 +603,23 @@ public class ScrabbleView extends JFrame {
 
     }
 
-    private void getGameSaves() {
-        File directory = new File("src/saves");
-        saveNames = new ArrayList<>();
-        if (directory.exists() && directory.isDirectory()) {
-            // List all files in directory
-            File[] files = directory.listFiles();
-
-            if (files != null) {
-                for (File file : files) {
-                    saveNames.add(file.getName());
-                }
-            } else {
-                System.out.println("Directory is empty or cannot be read.");
-            }
-        } else {
-            System.out.println("Invalid directory path.");
-        }
+    /**
+     * Retrieves the catalog of saved games, which each save must be added to.
+     * @return the catalog of 'src/saves'.
+     */
+    public SaveCatalog getSaveCatalog() {
+        return saveCatalog;
     }
 
     public void updateLoadMenu() {
         loadMenu.removeAll();
         // set up menu for loading games
         mouseListener(null, loadMenu, null, 2); // Set hover border to pink
-        getGameSaves();
-        for (String name : saveNames) {
-            JMenuItem layoutItem = new JMenuItem(name);
+        for (SaveCatalog.Entry save : saveCatalog.getEntries()) {
+            JMenuItem layoutItem = new JMenuItem(save.getName());
+            layoutItem.setToolTipText(save.getDescription());
             mouseListener(null, null, layoutItem, 2);
-            layoutItem.setActionCommand("LOAD " + name);
+            layoutItem.setActionCommand("LOAD " + save.getName());
             layoutItem.addActionListener(sc);
             loadMenu.add(layoutItem);
         }
@@ -0,0 +1,56 @@
+/**
+ * The outcome of simulating one candidate move: how many playouts were run,
+ * and the mean and spread of the points the move gained over the opponent.
+ */
+public class SimulationResult {
+    private final Move move;
+    private final int iterations;
+    private final double mean;
+    private final double standardDeviation;
+
+    /**
+     * Constructor for the SimulationResult class.
+     *
+     * @param move the simulated move
+     * @param iterations the number of playouts
+     * @param mean the mean value of the move, its score plus the spread over the following plies,
+     *             or NaN if there were no playouts
+     * @param standardDeviation the standard deviation of the playout values
+     */
+    public SimulationResult(Move move, int iterations, double mean, double standardDeviation) {
+        this.move = move;
+        this.iterations = iterations;
+        this.mean = mean;
+        this.standardDeviation = standardDeviation;
+    }
+
+    public Move getMove() {
+        return move;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval for the mean.
+     *
+     * @return the interval half-width, or infinity with fewer than two playouts
+     */
+    public double getConfidence95() {
+        return iterations < 2 ? Double.POSITIVE_INFINITY : 1.96 * standardDeviation / Math.sqrt(iterations);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %.1f +/- %.1f over %d playouts", move, mean, getConfidence95(), iterations);
+    }
+}
@@ -0,0 +1,174 @@
+import org.w3c.dom.*;
+import javax.xml.parsers.*;
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The score and number of tiles of each letter in a language's edition of the game,
+ * read from a tile set file such as "src/tileSets/english.xml".
+ *
+ * Scores and counts are held in arrays indexed by letter from 'a' to 'z', with blanks at index 26,
+ * so scoring a tile is a single array load. A tile set also names the dictionary its games are played
+ * with. Tile sets are immutable and shared by every game, which each hold the id of their own.
+ */
+public final class TileSet {
+    /** Identifier of the default tile set, "src/tileSets/english.xml". */
+    public static final String DEFAULT_ID = "english";
+    /** The index blanks are counted and scored under. */
+    public static final int BLANK = 26;
+
+    private static final ConcurrentHashMap<String, TileSet> loaded = new ConcurrentHashMap<>();
+
+    private final String id;
+    private final String lexiconId;
+    private final int[] scores;
+    private final int[] counts;
+    private final int totalCount;
+
+    private TileSet(String id, String lexiconId, int[] scores, int[] counts) {
+        this.id = id;
+        this.lexiconId = lexiconId;
+        this.scores = scores;
+        this.counts = counts;
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        this.totalCount = total;
+    }
+
+    /**
+     * Returns the tile set for an identifier, loading it the first time it is asked for.
+     *
+     * @param id the tile set identifier, the file name in 'src/tileSets' without its extension.
+     * @return the shared tile set.
+     */
+    public static TileSet get(String id) {
+        return loaded.computeIfAbsent(id, TileSet::load);
+    }
+
+    /**
+     * Returns the tile set new games are played with, which is DEFAULT_ID
+     * unless another is chosen with the "scrabble.tileSet" system property.
+     *
+     * @return the shared tile set.
+     */
+    public static TileSet getDefault() {
+        return Default.TILE_SET;
+    }
+
+    /**
+     * Loads a tile set file. The root element may name its dictionary with a "lexicon" attribute,
+     * or is played with Dictionaries.DEFAULT_ID. Each tile element gives the score and count of one letter,
+     * with the letter "blank" for blank tiles; letters not listed have no tiles.
+     *
+     * @param id the tile set identifier.
+     * @return the loaded tile set.
+     */
+    private static TileSet load(String id) {
+        try {
+            File file = new File("src/tileSets/" + id + ".xml");
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            Document doc = builder.parse(file);
+            doc.getDocumentElement().normalize();
+
+            int[] scores = new int[27];
+            int[] counts = new int[27];
+            NodeList tiles = doc.getElementsByTagName("tile");
+            for (int i = 0; i < tiles.getLength(); i++) {
+                Element tile = (Element) tiles.item(i);
+                String letter = tile.getAttribute("letter");
+                int index = letter.equalsIgnoreCase("blank") ? BLANK
+                        : letter.length() == 1 ? Lexicon.letterIndex(letter.charAt(0)) : -1;
+                if (index < 0) {
+                    throw new IllegalArgumentException("Invalid letter in tile set " + id + ": " + letter);
+                }
+                scores[index] = Integer.parseInt(tile.getAttribute("score"));
+                counts[index] = Integer.parseInt(tile.getAttribute("count"));
+            }
+            String lexiconId = doc.getDocumentElement().getAttribute("lexicon");
+            return new TileSet(id, lexiconId.isEmpty() ? Dictionaries.DEFAULT_ID : lexiconId, scores, counts);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the identifier of the dictionary games with this tile set are played with.
+     *
+     * @return the lexicon identifier, for Dictionaries.get.
+     */
+    public String getLexiconId() {
+        return lexiconId;
+    }
+
+    /**
+     * Returns the score of a letter or of a blank.
+     *
+     * @param index the letter index from 0 to 25, or BLANK.
+     * @return the score of the tile.
+     */
+    public int getScore(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Returns the score of a tile, which is that of a blank whatever letter it has been given.
+     *
+     * @param tile the tile to score.
+     * @return the score of the tile.
+     * @throws IllegalArgumentException if the tile is not a letter or a blank.
+     */
+    public int getScore(Tile tile) {
+        if (tile.isBlank()) {
+            return scores[BLANK];
+        }
+        int index = Lexicon.letterIndex(tile.getTileChar());
+        if (index < 0) {
+            throw new IllegalArgumentException("That is not a valid tile");
+        }
+        return scores[index];
+    }
+
+    /**
+     * Returns how many tiles of a letter, or blanks, a full bag holds.
+     *
+     * @param index the letter index from 0 to 25, or BLANK.
+     * @return the number of tiles.
+     */
+    public int getCount(int index) {
+        return counts[index];
+    }
+
+    /**
+     * Returns how many tiles a full bag holds.
+     *
+     * @return the number of tiles, blanks included.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the image for a tile, which shows its score.
+     *
+     * @param tile the tile to show.
+     * @return the path of the tile's image.
+     */
+    public String getImagePath(Tile tile) {
+        return "src/images/tile" + getScore(tile) + ".png";
+    }
+
+    /**
+     * Holds the default tile set, loaded on first use.
+     */
+    private static final class Default {
+        static final TileSet TILE_SET = get(System.getProperty("scrabble.tileSet", DEFAULT_ID));
+    }
+}
@@ -0,0 +1,265 @@
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The undo and redo history of a game, kept within a budget of entries and estimated bytes.
+ *
+ * When a new step takes the history over its budget, the oldest steps are evicted first. Evicted steps are
+ * dropped, or, if a spill directory is given, written to a file there and read back when undo reaches them,
+ * so long games keep their whole history without holding it all on the heap. Spill files are named for the
+ * process that wrote them; they are deleted as they are read back or cleared, and any left behind by a
+ * process that has ended are deleted when a history next uses the directory.
+ */
+public class UndoHistory {
+    /** The default number of steps kept in memory. */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    /** The default estimated bytes kept in memory. */
+    public static final long DEFAULT_MAX_BYTES = 4L << 20;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final File spillDirectory;
+
+    private final Deque<HistoryEntry> undoStack = new ArrayDeque<>();
+    private final Deque<HistoryEntry> redoStack = new ArrayDeque<>();
+    // Spilled steps, nearest first: undo steps older than undoStack, and redo steps further than redoStack
+    private final Deque<File> spilledUndo = new ArrayDeque<>();
+    private final Deque<File> spilledRedo = new ArrayDeque<>();
+    private long bytes;
+    private long spilledBytes;
+    private int evicted;
+
+    /**
+     * Constructor for an UndoHistory with the default budget, which drops the steps it evicts.
+     */
+    public UndoHistory() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, null);
+    }
+
+    /**
+     * Constructor for the UndoHistory class.
+     *
+     * @param maxEntries the most steps to keep in memory, at least 1.
+     * @param maxBytes the most estimated bytes to keep in memory.
+     * @param spillDirectory where to write evicted steps, or null to drop them.
+     */
+    public UndoHistory(int maxEntries, long maxBytes, File spillDirectory) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The history must hold at least one entry");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.spillDirectory = spillDirectory;
+        if (spillDirectory != null) {
+            deleteAbandoned(spillDirectory);
+        }
+    }
+
+    /**
+     * Deletes the spill files of processes that have ended, which could not clear them.
+     *
+     * @param spillDirectory the directory to look in.
+     */
+    private static void deleteAbandoned(File spillDirectory) {
+        File[] files = spillDirectory.listFiles((dir, name) -> name.startsWith("undo-") && name.endsWith(".ser"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String[] parts = file.getName().split("-");
+            try {
+                long pid = Long.parseLong(parts[1]);
+                if (pid != ProcessHandle.current().pid() && ProcessHandle.of(pid).isEmpty()) {
+                    file.delete();
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                // Not a spill file
+            }
+        }
+    }
+
+    /**
+     * Adds a new step, which makes the steps that were undone before it impossible to redo.
+     *
+     * @param entry the record of the step.
+     */
+    public void record(HistoryEntry entry) {
+        while (!redoStack.isEmpty()) {
+            bytes -= redoStack.pop().estimateSize();
+        }
+        deleteSpilled(spilledRedo);
+        pushUndo(entry);
+    }
+
+    /**
+     * Adds a step that was redone, keeping the rest of the redo history.
+     *
+     * @param entry the record of the step.
+     */
+    public void pushUndo(HistoryEntry entry) {
+        undoStack.push(entry);
+        bytes += entry.estimateSize();
+        trim(undoStack, spilledUndo);
+    }
+
+    /**
+     * Takes the last step off the undo history, reading it back from disk if it was spilled.
+     *
+     * @return the record of the step, or null if there is nothing to undo.
+     */
+    public HistoryEntry takeUndo() {
+        return take(undoStack, spilledUndo);
+    }
+
+    /**
+     * Adds a step that was undone, so it can be redone.
+     *
+     * @param entry the record of the step.
+     */
+    public void pushRedo(HistoryEntry entry) {
+        redoStack.push(entry);
+        bytes += entry.estimateSize();
+        trim(redoStack, spilledRedo);
+    }
+
+    /**
+     * Takes the last undone step off the redo history.
+     *
+     * @return the record of the step, or null if there is nothing to redo.
+     */
+    public HistoryEntry takeRedo() {
+        return take(redoStack, spilledRedo);
+    }
+
+    /**
+     * Forgets every step, deleting any spilled to disk.
+     */
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+        bytes = 0;
+        deleteSpilled(spilledUndo);
+        deleteSpilled(spilledRedo);
+    }
+
+    /**
+     * Evicts the steps furthest from the current turn on one side of the history until the history is
+     * within its budget, keeping at least the nearest step.
+     */
+    private void trim(Deque<HistoryEntry> stack, Deque<File> spilled) {
+        while (stack.size() > 1 && (getEntryCount() > maxEntries || bytes > maxBytes)) {
+            HistoryEntry entry = stack.removeLast();
+            bytes -= entry.estimateSize();
+            if (spillDirectory == null || !spill(entry, spilled)) {
+                evicted += spilled.size() + 1;
+                deleteSpilled(spilled); // Steps beyond a dropped one can no longer be reached
+            }
+        }
+    }
+
+    /**
+     * Writes a step to a file in the spill directory, as the furthest step in memory on its side.
+     *
+     * @return true if the step was written.
+     */
+    private boolean spill(HistoryEntry entry, Deque<File> spilled) {
+        File file = null;
+        try {
+            spillDirectory.mkdirs();
+            file = File.createTempFile("undo-" + ProcessHandle.current().pid() + "-", ".ser", spillDirectory);
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                out.writeObject(entry);
+            }
+            spilled.push(file);
+            spilledBytes += file.length();
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error spilling undo history:" + e.getMessage());
+            if (file != null) {
+                file.delete();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Takes the nearest step on one side of the history, reading it back from disk if it was spilled.
+     */
+    private HistoryEntry take(Deque<HistoryEntry> stack, Deque<File> spilled) {
+        HistoryEntry entry = stack.poll();
+        if (entry != null) {
+            bytes -= entry.estimateSize();
+            return entry;
+        }
+        File file = spilled.poll();
+        if (file == null) {
+            return null;
+        }
+        spilledBytes -= file.length();
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (HistoryEntry) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            System.out.println("Error reading undo history:" + e.getMessage());
+            evicted += spilled.size() + 1;
+            deleteSpilled(spilled); // Steps beyond a lost one can no longer be reached
+            return null;
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void deleteSpilled(Deque<File> spilled) {
+        for (File file : spilled) {
+            spilledBytes -= file.length();
+            file.delete();
+        }
+        spilled.clear();
+    }
+
+    /**
+     * Returns the number of steps held in memory, undo and redo together.
+     *
+     * @return the number of steps.
+     */
+    public int getEntryCount() {
+        return undoStack.size() + redoStack.size();
+    }
+
+    /**
+     * Returns the estimated bytes the steps in memory hold on to.
+     *
+     * @return the estimated size of the history.
+     */
+    public long getMemoryBytes() {
+        return bytes;
+    }
+
+    public int getSpilledCount() {
+        return spilledUndo.size() + spilledRedo.size();
+    }
+
+    /**
+     * Returns the size on disk of the spilled steps.
+     *
+     * @return the total size of the spill files, in bytes.
+     */
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Returns the number of steps dropped from the history, which can no longer be undone.
+     *
+     * @return the number of dropped steps.
+     */
+    public int getEvictedCount() {
+        return evicted;
+    }
+
+    @Override
+    public String toString() {
+        return getEntryCount() + " steps (" + bytes / 1024 + " KB) in memory, " + getSpilledCount() + " spilled ("
+                + spilledBytes / 1024 + " KB), " + evicted + " dropped";
+    }
+}
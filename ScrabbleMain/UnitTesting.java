@@ -48,6 +48,13 @@ public class UnitTesting {
             tileList.add(new Tile(c));
         }
         return tileList;
+    }
+    private String letters(List<Tile> tiles){
+        StringBuilder letters = new StringBuilder();
+        for (Tile tile : tiles){
+            letters.append(tile.isBlank() ? '_' : tile.getTileChar());
+        }
+        return letters.toString();
     }
          /**
      Tests the word validity system of the game and makes sure words given are within the dictionary given
@@ -259,6 +266,813 @@ public class UnitTesting {
 
     }
 
+    /**
+     Tests that the lexicon answers both whole word and prefix questions
+     */
+    @org.junit.Test
+    public void testLexiconPrefixWalk() {
+        Lexicon lexicon = model.getLexicon();
+        assertTrue("'outstanding' should be a word", lexicon.contains("outstanding"));
+        assertFalse("'outstand' should not be a word", lexicon.contains("outstand"));
+        assertTrue("'outstand' should be a prefix of a word", lexicon.hasPrefix("outstand"));
+        assertFalse("'zqx' should not be a prefix of any word", lexicon.hasPrefix("zqx"));
+
+        int node = lexicon.walk(lexicon.root(), "zoophili");
+        assertNotEquals("The walk should stay in the lexicon", Lexicon.NONE, node);
+        assertTrue("'a' should continue 'zoophili'", (lexicon.childMask(node) & 1) != 0);
+        assertTrue("'zoophilia' should end on a terminal node", lexicon.isTerminal(lexicon.child(node, 'a')));
+    }
+
+    /**
+     Tests that a compiled dictionary reads back the words it was compiled from, and that a dictionary file
+     with the wrong version, a bad checksum or missing bytes is passed over for the word list
+     */
+    @org.junit.Test
+    public void testDictionaryCompiler_RoundTrip() throws java.io.IOException {
+        java.io.File directory = java.nio.file.Files.createTempDirectory("dictionary").toFile();
+        java.io.File wordList = new java.io.File(directory, "words.txt");
+        java.io.File compiled = new java.io.File(directory, "words.dawg");
+        java.nio.file.Files.write(wordList.toPath(), List.of("cat", "cats", "dog", "zoo"));
+
+        Dawg dawg = DictionaryCompiler.compile(wordList, compiled);
+        MappedLexicon mapped = MappedLexicon.open(compiled);
+        assertEquals("The word count should read back", dawg.wordCount(), mapped.wordCount());
+        for (String word : new String[]{"cat", "cats", "dog", "zoo"}) {
+            assertTrue("'" + word + "' should read back", mapped.contains(word));
+        }
+        assertFalse("'ca' should not be a word", mapped.contains("ca"));
+        assertTrue("A valid file should be used", Dictionaries.load(compiled, wordList) instanceof MappedLexicon);
+
+        byte[] data = java.nio.file.Files.readAllBytes(compiled.toPath());
+        byte[] wrongVersion = data.clone();
+        wrongVersion[7] = 9;
+        byte[] badChecksum = data.clone();
+        badChecksum[data.length - 1] ^= 1;
+        byte[] truncated = java.util.Arrays.copyOf(data, data.length - 4);
+        for (byte[] broken : new byte[][]{wrongVersion, badChecksum, truncated}) {
+            java.nio.file.Files.write(compiled.toPath(), broken);
+            try {
+                MappedLexicon.open(compiled);
+                fail("A broken dictionary file should not be opened");
+            } catch (java.io.IOException e) {
+                // Expected
+            }
+            Lexicon lexicon = Dictionaries.load(compiled, wordList);
+            assertFalse("A broken file should be passed over", lexicon instanceof MappedLexicon);
+            assertTrue("The word list should be used instead", lexicon.contains("cats"));
+        }
+        compiled.delete();
+        wordList.delete();
+        directory.delete();
+    }
+
+    /**
+     Tests that the move generator finds scored first moves through the center square
+     */
+    @org.junit.Test
+    public void testMoveGenerator_FirstMove() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        List<Move> moves = new MoveGenerator(model.getLexicon()).generate(model.getBoard(), model.getCurrentPlayer());
+        assertFalse("There should be moves for 'hello'", moves.isEmpty());
+
+        boolean foundHello = false;
+        for (Move move : moves) {
+            boolean coversCenter = move.getDirection() == 'R' ?
+                    move.getY() == 7 && move.getX() <= 7 && move.getX() + move.getLetters().length() > 7 :
+                    move.getX() == 7 && move.getY() <= 7 && move.getY() + move.getLetters().length() > 7;
+            assertTrue("Every first move should cover the center: " + move, coversCenter);
+            if (move.getLetters().equals("hello") && move.getX() == 7 && move.getY() == 7 && move.getDirection() == 'R') {
+                assertEquals("'hello' at (7, 7) should score 9", 9, move.getScore());
+                foundHello = true;
+            }
+        }
+        assertTrue("'hello' at (7, 7) should be generated", foundHello);
+    }
+
+    /**
+     Tests that searching the lines in parallel finds the same top moves, in the same order, as searching them in turn
+     */
+    @org.junit.Test
+    public void testMoveGenerator_ParallelMatchesSequential() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        model.skip();
+        List<Tile> hand = makeWord("stare n");
+
+        MoveGenerator generator = new MoveGenerator(model.getLexicon());
+        List<Move> sequential = generator.generateTop(model.getBoard(), hand, 300, false);
+        List<Move> parallel = generator.generateTop(model.getBoard(), hand, 300, true);
+
+        assertEquals("The search should be cut off at n moves", 300, sequential.size());
+        assertEquals("Both searches should find the same moves", sequential.toString(), parallel.toString());
+        boolean tied = false;
+        for (int i = 1; i < sequential.size(); i++) {
+            tied |= sequential.get(i - 1).getScore() == sequential.get(i).getScore();
+        }
+        assertTrue("The moves compared should include ties", tied);
+    }
+
+    /**
+     Tests that the board layout can be changed before the first move, but not after it
+     */
+    @org.junit.Test
+    public void testSetLayout_OnlyBeforeFirstMove() {
+        assertTrue("The layout should change before the first move", model.setLayout("heartLayout.xml"));
+        assertEquals("The board should use the new layout", "heartLayout.xml", model.getBoard().getLayoutId());
+
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        assertFalse("The layout should not change after the first move", model.setLayout("goodluckLayout.xml"));
+        assertEquals("The board should keep its layout", "heartLayout.xml", model.getBoard().getLayoutId());
+    }
+
+    /**
+     Tests that a tile making words both across and down is generated once, not as a move in each direction
+     */
+    @org.junit.Test
+    public void testMoveGenerator_NoDuplicatePlacements() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        setPlayerTiles('e', 'l', 'p');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'D', makeWord("help")));
+        Board board = model.getBoard();
+
+        List<Move> moves = new MoveGenerator(model.getLexicon())
+                .generateTop(board, makeWord("stare n"), Integer.MAX_VALUE, false);
+        java.util.Set<String> placements = new java.util.HashSet<>();
+        boolean corner = false;
+        for (Move move : moves) {
+            StringBuilder placement = new StringBuilder();
+            for (int i = 0; i < move.getLetters().length(); i++) {
+                int xIndex = move.getDirection() == 'D' ? move.getX() : move.getX() + i;
+                int yIndex = move.getDirection() == 'D' ? move.getY() + i : move.getY();
+                if (board.isEmpty(xIndex, yIndex)) {
+                    placement.append(xIndex).append(',').append(yIndex).append(move.getLetters().charAt(i))
+                            .append(move.isBlank(i) ? '?' : ' ');
+                }
+            }
+            corner |= move.getTilesPlayed() == 1 && placement.toString().startsWith("8,8");
+            assertTrue("Each placement should be generated once: " + move, placements.add(placement.toString()));
+        }
+        assertTrue("A tile between 'hello' and 'help' makes words both ways", corner);
+    }
+
+    /**
+     Tests that a game between computer players runs to the end on its own
+     */
+    @org.junit.Test
+    public void testComputerPlayer_PlaysFullGame() {
+        ScrabbleModel botGame = new ScrabbleModel();
+        botGame.addComputerPlayer("Bot1", 50);
+        botGame.addComputerPlayer("Bot2", 50);
+        int turns = 0;
+        while (!botGame.isGameOver() && turns < 500) {
+            assertTrue("The current player should be a computer", botGame.playComputerTurn());
+            turns++;
+        }
+        assertTrue("The game should finish", botGame.isGameOver());
+        assertFalse("The computers should have played tiles", botGame.getBoard().getTileCount() == 0);
+    }
+
+    /**
+     Tests that simulation spreads playouts over every candidate and ranks them by mean
+     */
+    @org.junit.Test
+    public void testMonteCarloSimulator_RanksCandidates() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        List<Move> candidates = new MoveGenerator(model.getLexicon())
+                .generateTop(model.getBoard(), model.getCurrentPlayer().getHand(), 4, false);
+        MonteCarloSimulator simulator = new MonteCarloSimulator(model.getLexicon(), 2, 1);
+        MonteCarloSimulator.Report report = simulator.simulate(model, candidates, 2, 40, Long.MAX_VALUE);
+        simulator.shutdown();
+
+        assertEquals("Every playout should be counted", 40, report.getIterations());
+        List<SimulationResult> results = report.getResults();
+        assertEquals("Every candidate should have a result", candidates.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("Playouts should be shared evenly", 40 / candidates.size(), results.get(i).getIterations());
+            if (i > 0) {
+                assertTrue("Results should be sorted by mean", results.get(i - 1).getMean() >= results.get(i).getMean());
+            }
+        }
+
+        simulator = new MonteCarloSimulator(model.getLexicon(), 1, 1);
+        results = simulator.simulate(model, candidates, 2, 2, Long.MAX_VALUE).getResults();
+        simulator.shutdown();
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals("Candidates without playouts should be ranked last", i < 2 ? 1 : 0,
+                    results.get(i).getIterations());
+        }
+    }
+
+    /**
+     Tests that the endgame solver searches to the end and does at least as well as going out at once
+     */
+    @org.junit.Test
+    public void testEndgameSolver_GoesOut() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+
+        int[] mover = MoveGenerator.countTiles(makeWord("s"));
+        int[] opponent = MoveGenerator.countTiles(makeWord("qi"));
+        List<Move> moves = new MoveGenerator(model.getLexicon())
+                .generateTop(model.getBoard(), makeWord("s"), 1, false);
+        EndgameSolver.Result result = new EndgameSolver(model.getLexicon())
+                .solve(model.getBoard(), mover, opponent, 0, Long.MAX_VALUE);
+
+        assertTrue("A one tile endgame should be solved exactly", result.isExact());
+        assertNotNull("Going out should beat skipping", result.getMove());
+        assertTrue("The spread should be at least the best score", result.getSpread() >= moves.get(0).getScore());
+        assertTrue("The board should be left unchanged", model.getBoard().isEmpty(7, 6));
+    }
+
+    /** Tests that the endgame solver counts the scoreless turns played before the position it is given */
+    @org.junit.Test
+    public void testEndgameSolver_PriorPasses() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+
+        int[] mover = MoveGenerator.countTiles(makeWord("vw"));
+        int[] opponent = MoveGenerator.countTiles(makeWord("jo"));
+        EndgameSolver solver = new EndgameSolver(model.getLexicon());
+        EndgameSolver.Result fresh = solver.solve(model.getBoard(), mover, opponent, 0, Long.MAX_VALUE);
+        EndgameSolver.Result passed = solver.solve(model.getBoard(), mover, opponent, 3, Long.MAX_VALUE);
+
+        assertTrue("Without prior passes the opponent should come out ahead", fresh.getSpread() < 0);
+        assertNull("After three passes, passing should be best", passed.getMove());
+        assertEquals("Passing should end the game at once", 0, passed.getSpread());
+        assertTrue("The ending pass should be exact", passed.isExact());
+    }
+
+    /**
+     Tests that evaluating a move scores it without changing the game, and that makeMove commits the same score
+     */
+    @org.junit.Test
+    public void testEvaluateMove_ScoreBreakdown() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        model.skip();
+
+        setPlayerTiles('e', 'l', 'p');
+        MoveResult result = model.evaluateMove(7, 7, 'D', makeWord("help"));
+        assertTrue("'help' down from the 'h' should be valid", result.isValid());
+        assertEquals("Three tiles should be placed", 3, result.getTilesPlaced());
+        assertEquals("'help' should score 9", 9, result.getScore());
+        assertEquals("No words are formed across 'help'", 0, result.getCrossScore());
+        assertTrue("Evaluating should not place tiles", model.getBoard().isEmpty(7, 8));
+
+        MoveResult invalid = model.evaluateMove(7, 7, 'D', makeWord("hlep"));
+        assertFalse("'hlep' should be invalid", invalid.isValid());
+        assertNotNull("An invalid move should have a reason", invalid.getReason());
+
+        Player player = model.getCurrentPlayer();
+        int before = player.getScore();
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'D', makeWord("help")));
+        assertEquals("makeMove should add the evaluated score", before + 9, player.getScore());
+    }
+
+    /**
+     Tests that checking moves, even a legal first move, leaves the game and its undo history untouched
+     */
+    @org.junit.Test
+    public void testDryRun_NoSideEffects() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o', ' ');
+        assertTrue("The position should be possible for placement", model.isPossible(7, 7, 'R', makeWord("hello")));
+        assertTrue("The word placement should be valid", model.isValid(7, 7, 'R', makeWord("hello")));
+        assertTrue("It should still be the first move", model.isFirst());
+        assertFalse("Nothing should have been saved for undo", model.undo());
+
+        List<Move> moves = new MoveGenerator(model.getLexicon()).generate(model.getBoard(), model.getCurrentPlayer());
+        List<MoveResult> results = model.evaluateMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            assertTrue("Every generated move should be valid: " + moves.get(i), results.get(i).isValid());
+            assertEquals("Scores should agree: " + moves.get(i), moves.get(i).getScore(), results.get(i).getScore());
+        }
+        for (Tile tile : model.getCurrentPlayer().getHand()) {
+            assertFalse("The blank should not have been given a letter", tile.isBlank() && tile.getTileChar() != ' ');
+        }
+        assertTrue("The board should still be empty", model.getBoard().getTileCount() == 0);
+    }
+
+    /**
+     Tests that the board's letters, blanks and premiums read back the same through both its views
+     */
+    @org.junit.Test
+    public void testBoard_PrimitiveView() {
+        Board board = new Board();
+        Tile blank = new Tile(' ');
+        blank.setTileChar('q');
+        board.addLetter(7, 7, new Tile('z'));
+        board.addLetter(8, 7, blank);
+
+        assertEquals("The letter should read back", 'z', board.getLetter(7, 7));
+        assertEquals("A z should score 10", 10, board.getTileScore(7, 7));
+        assertTrue("The blank should be flagged", board.isBlank(8, 7));
+        assertEquals("A blank should score nothing", 0, board.getTileScore(8, 7));
+        assertSame("The placed tile should be returned", blank, board.getTile(8, 7));
+        assertEquals("The center square has no premium", Premium.NORMAL, board.getPremium(7, 7));
+        assertEquals("The corner is a triple word", Premium.TW, board.getPremium(0, 0));
+
+        Board copy = new Board(board);
+        assertEquals("A copy should equal the original", board, copy);
+        assertEquals("A copy should hash the same", board.hashCode(), copy.hashCode());
+        copy.removeLetter(8, 7);
+        assertNotEquals("Changing the copy should not change the original", board, copy);
+        assertFalse("The original should keep its tile", board.isEmpty(8, 7));
+    }
+
+    /**
+     Tests that the occupancy masks follow tiles as they are added and removed, and find runs of tiles
+     */
+    @org.junit.Test
+    public void testBoard_OccupancyMasks() {
+        Board board = new Board();
+        board.addLetter(7, 7, new Tile('a'));
+        board.addLetter(8, 7, new Tile('t'));
+        board.addLetter(10, 7, new Tile('e'));
+
+        assertEquals("Row 7 should hold x = 7, 8 and 10", (1 << 7) | (1 << 8) | (1 << 10), board.getLineMask('R', 7));
+        assertEquals("Column 8 should hold y = 7", 1 << 7, board.getLineMask('D', 8));
+        assertTrue("The gap at 9, 7 should touch a tile", board.touches(9, 7));
+        assertTrue("9, 7 should have a neighbour along the row", board.hasNeighbour('R', 9, 7));
+        assertFalse("9, 7 should have no neighbour down its column", board.hasNeighbour('D', 9, 7));
+        assertFalse("A far square should touch nothing", board.touches(0, 0));
+
+        int filled = board.getLineMask('R', 7) | (1 << 9);
+        assertEquals("The run should start at 7", 7, Board.runStart(filled, 9));
+        assertEquals("The run should end at 10", 10, Board.runEnd(filled, 9));
+        assertEquals("Without the gap filled, the run ends at 8", 8, Board.runEnd(board.getLineMask('R', 7), 7));
+        assertEquals("A span should set its bits", 0b1110, Board.span(1, 3));
+
+        board.removeLetter(8, 7);
+        assertEquals("Removing a tile should clear its bit", (1 << 7) | (1 << 10), board.getLineMask('R', 7));
+        assertTrue("Removing a tile should clear its column", board.getLineMask('D', 8) == 0);
+    }
+
+    /**
+     Tests that tile sets load their score and count tables, and that boards and bags follow their game's set
+     */
+    @org.junit.Test
+    public void testTileSet_Tables() {
+        TileSet english = TileSet.getDefault();
+        assertEquals("The default tile set should be English", TileSet.DEFAULT_ID, english.getId());
+        assertEquals("A full English bag holds 100 tiles", 100, english.getTotalCount());
+        assertEquals("Q should score 10", 10, english.getScore(Lexicon.letterIndex('q')));
+        assertEquals("There should be 12 Es", 12, english.getCount(Lexicon.letterIndex('e')));
+        assertEquals("There should be 2 blanks", 2, english.getCount(TileSet.BLANK));
+        Tile blank = new Tile(' ');
+        blank.setTileChar('z');
+        assertEquals("A blank scores 0 whatever its letter", 0, english.getScore(blank));
+        assertEquals("Tile scores should come from the tile set", 4, english.getScore(new Tile('w')));
+        assertEquals("A new bag should hold the whole set", english.getTotalCount(), new Bag().getTileCount());
+        assertSame("Tile sets should be loaded once", english, TileSet.get(TileSet.DEFAULT_ID));
+
+        TileSet french = TileSet.get("french");
+        assertEquals("A full French bag holds 102 tiles", 102, french.getTotalCount());
+        assertEquals("K should score 10 in French", 10, french.getScore(new Tile('k')));
+        assertEquals("The French image follows the French score", "src/images/tile10.png", french.getImagePath(new Tile('k')));
+
+        Board board = new Board(french);
+        board.addLetter(7, 7, new Tile('k'));
+        assertEquals("A board should score by its game's tile set", 10, board.getTileScore(7, 7));
+        assertSame("A copied board should keep its tile set", french, new Board(board).getTileSet());
+        assertEquals("A French bag should hold the French set", french.getTotalCount(), new Bag(french, 0).getTileCount());
+        assertEquals("The English set should name its dictionary", Dictionaries.DEFAULT_ID, english.getLexiconId());
+        assertEquals("A game should record its tile set", english.getId(), model.getTileSetId());
+    }
+
+    /**
+     Tests that undoing a move and a skip restores the board, hands, bag and scores, and that redo plays them again
+     */
+    @org.junit.Test
+    public void testUndoRedo_MoveRecords() {
+        Player player = model.getCurrentPlayer();
+        setPlayerTiles('h', 'e', 'l', 'l', 'o', 'x', ' ');
+        List<Tile> handBefore = new ArrayList<>(player.getHand());
+        int bagBefore = model.getBag().getTileCount();
+
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        List<Tile> handAfter = new ArrayList<>(player.getHand());
+        model.skip();
+
+        assertTrue("The skip should be undone", model.undo());
+        assertSame("Undoing the skip should give the turn back", model.getPlayers().get(1), model.getCurrentPlayer());
+        assertTrue("The move should be undone", model.undo());
+        assertFalse("There should be nothing left to undo", model.undo());
+        assertSame("It should be the first player's turn again", player, model.getCurrentPlayer());
+        assertTrue("It should be the first move again", model.isFirst());
+        assertEquals("The board should be empty", 0, model.getBoard().getTileCount());
+        assertEquals("The drawn tiles should be back in the bag", bagBefore, model.getBag().getTileCount());
+        assertEquals("The score should be taken back", 0, player.getScore());
+        assertEquals("The hand should be back in its order", handBefore, player.getHand());
+
+        assertTrue("The move should be redone", model.redo());
+        assertEquals("Redo should draw the same tiles", letters(handAfter), letters(player.getHand()));
+        assertEquals("Redo should score the move again", 9, player.getScore());
+        assertFalse("The word should be back on the board", model.getBoard().isEmpty(11, 7));
+        assertTrue("The skip should be redone", model.redo());
+        assertFalse("There should be nothing left to redo", model.redo());
+        assertSame("It should be the first player's turn", player, model.getCurrentPlayer());
+    }
+
+    /**
+     Tests that game states are snapshots: moves return new states, and older states are left as they were
+     */
+    @org.junit.Test
+    public void testGameState_Snapshots() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        GameState before = model.getState();
+        assertSame("Asking again should give the same state", before, model.getState());
+
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        GameState after = model.getState();
+        assertNotSame("A move should give a new state", before, after);
+        assertTrue("The old state should still have an empty board", before.isEmpty(7, 7));
+        assertEquals("The new state should have the word", 'h', after.getLetter(7, 7));
+        assertEquals("The new state should have the score", 9, after.getScore(0));
+        assertEquals("It should be the second player's turn", 1, after.getCurrentPlayer());
+        assertEquals("The mover's rack should be refilled from the bag", before.getBagSize() - 7, after.getBagSize());
+        assertEquals("The state's board should match the model's", model.getBoard(), after.toBoard());
+
+        GameState skipped = after.skip();
+        assertEquals("A skip should pass the turn", 0, skipped.getCurrentPlayer());
+        assertEquals("A skip should leave the state it came from alone", 1, after.getCurrentPlayer());
+
+        assertTrue("The move should be undone", model.undo());
+        assertSame("Undo should bring back the state before the move", before, model.getState());
+
+        model.addPlayer("Player3");
+        assertEquals("A new player should be in the next state", 3, model.getState().getPlayerCount());
+        model.addComputerPlayer("Computer", 10);
+        assertEquals("A new computer player should be in the next state", 4, model.getState().getPlayerCount());
+    }
+
+    /**
+     Tests that the undo history keeps to its budget, dropping the oldest steps or spilling them to disk
+     */
+    @org.junit.Test
+    public void testUndoHistory_Budget() throws java.io.IOException {
+        model.setHistory(new UndoHistory(3, Long.MAX_VALUE, null));
+        for (int i = 0; i < 5; i++) {
+            model.skip();
+        }
+        assertEquals("Only three steps should be kept", 3, model.getHistory().getEntryCount());
+        assertEquals("The two oldest steps should be dropped", 2, model.getHistory().getEvictedCount());
+        assertTrue("The kept steps should be counted", model.getHistory().getMemoryBytes() > 0);
+        int undone = 0;
+        while (model.undo()) {
+            undone++;
+        }
+        assertEquals("Only the kept steps should be undone", 3, undone);
+
+        java.io.File spill = java.nio.file.Files.createTempDirectory("undo").toFile();
+        model.setHistory(new UndoHistory(2, Long.MAX_VALUE, spill));
+        Player first = model.getCurrentPlayer();
+        for (int i = 0; i < 5; i++) {
+            model.skip();
+        }
+        assertEquals("Three steps should be spilled", 3, model.getHistory().getSpilledCount());
+        assertTrue("The spilled steps should be on disk", model.getHistory().getSpilledBytes() > 0);
+        undone = 0;
+        while (model.undo()) {
+            undone++;
+        }
+        assertEquals("Every step should be undone", 5, undone);
+        assertSame("Undoing every skip should give the turn back", first, model.getCurrentPlayer());
+        assertEquals("Nothing should have been dropped", 0, model.getHistory().getEvictedCount());
+        assertEquals("The redo steps past the budget should be spilled", 3, spill.listFiles().length);
+        undone = 0;
+        while (model.redo()) {
+            undone++;
+        }
+        assertEquals("Every step should be redone", 5, undone);
+        model.setHistory(new UndoHistory());
+        assertEquals("The spill files should be gone", 0, spill.listFiles().length);
+
+        java.io.File abandoned = new java.io.File(spill, "undo-999999999-1.ser"); // From a process that has ended
+        assertTrue("The abandoned file should be made", abandoned.createNewFile());
+        model.setHistory(new UndoHistory(1, Long.MAX_VALUE, spill));
+        assertFalse("Spill files left by an ended process should be deleted", abandoned.exists());
+        for (int i = 0; i < 3; i++) {
+            model.skip();
+        }
+        assertEquals("Two steps should be spilled", 2, model.getHistory().getSpilledCount());
+        for (java.io.File file : spill.listFiles()) {
+            file.delete();
+        }
+        assertTrue("The spill directory should be replaced", spill.delete() && spill.createNewFile());
+        model.skip(); // Spilling now fails, so this step and the two beyond it are lost
+        assertEquals("Every lost step should be counted", 3, model.getHistory().getEvictedCount());
+        assertEquals("No steps should be left spilled", 0, model.getHistory().getSpilledCount());
+        spill.delete();
+    }
+
+    /**
+     Tests that a game saved in the binary format is read back the same, and that the save is small
+     */
+    @org.junit.Test
+    public void testSaveFormat_RoundTrip() throws Exception {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o', ' ');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        model.getPlayers().get(0).getHand().get(1).setTileChar('q'); // The blank keeps the letter it was given
+        java.io.File file = java.io.File.createTempFile("save", ".bin");
+        model.saveState(file.getPath());
 
+        assertTrue("The save should be in the binary format", SaveFormat.isSaveFile(file));
+        assertTrue("The save should be a few hundred bytes: " + file.length(), file.length() < 400);
+        ScrabbleModel loaded = ScrabbleModel.readSave(file);
+        file.delete();
 
-}
\ No newline at end of file
+        assertEquals("The board should be the same", model.getBoard(), loaded.getBoard());
+        assertEquals("The layout should be the same", model.getBoard().getLayoutId(), loaded.getBoard().getLayoutId());
+        assertEquals("The turn should be the same", model.getCurrentPlayer().getName(), loaded.getCurrentPlayer().getName());
+        assertFalse("It should not be the first move", loaded.isFirst());
+        assertArrayEquals("The bag should be in the same order", model.getBag().getDrawOrder(), loaded.getBag().getDrawOrder());
+        for (int i = 0; i < 2; i++) {
+            Player saved = model.getPlayers().get(i);
+            Player read = loaded.getPlayers().get(i);
+            assertEquals("The score should be the same", saved.getScore(), read.getScore());
+            assertEquals("The hand should be the same size", saved.handSize(), read.handSize());
+            for (int j = 0; j < saved.handSize(); j++) {
+                assertTrue("The hand should be the same", saved.getHand().get(j).equals(read.getHand().get(j)));
+            }
+        }
+        assertTrue("The loaded game should draw from its own bag", loaded.getBag() != model.getBag());
+    }
+
+    /**
+     * Tests that files not in the save format, or saved with a tile set that cannot be loaded, are refused,
+     * and that a save from another tile set is played with that set.
+     */
+    @org.junit.Test
+    public void testReadSave_RejectsOtherSaves() throws Exception {
+        java.io.File file = java.io.File.createTempFile("save", ".ser");
+        try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(new java.io.FileOutputStream(file))) {
+            out.writeObject("A game saved by Java serialization");
+        }
+        try {
+            ScrabbleModel.readSave(file);
+            fail("A serialized save should not be read");
+        } catch (java.io.IOException e) {
+            assertTrue("The error should say the save is too old: " + e.getMessage(), e.getMessage().contains("older version"));
+        }
+
+        String save = new String(SaveFormat.toBytes(model), java.nio.charset.StandardCharsets.ISO_8859_1);
+        String tileSet = TileSet.getDefault().getId();
+        String other = tileSet.equals("french") ? "english" : "french";
+        String french = save.replace((char) 0 + "" + (char) tileSet.length() + tileSet, (char) 0 + "" + (char) other.length() + other);
+        ScrabbleModel loaded = SaveFormat.read(new java.io.DataInputStream(new java.io.ByteArrayInputStream(french.getBytes(java.nio.charset.StandardCharsets.ISO_8859_1))));
+        assertEquals("A save from another tile set should be played with its own", other, loaded.getTileSetId());
+        assertSame("The board should be scored by the saved tile set", TileSet.get(other), loaded.getBoard().getTileSet());
+
+        String unknown = save.replace((char) 0 + "" + (char) tileSet.length() + tileSet, (char) 0 + "" + (char) 7 + "klingon");
+        try {
+            SaveFormat.read(new java.io.DataInputStream(new java.io.ByteArrayInputStream(unknown.getBytes(java.nio.charset.StandardCharsets.ISO_8859_1))));
+            fail("A save from a missing tile set should not be read");
+        } catch (java.io.IOException e) {
+            assertTrue("The error should name the tile set: " + e.getMessage(), e.getMessage().contains("klingon"));
+        }
+        file.delete();
+    }
+
+    /**
+     * Tests that a journaled game, undo and a torn last record included, replays to the same position,
+     * and that its history still holds every earlier turn.
+     */
+    @org.junit.Test
+    public void testMoveJournal_Replay() throws Exception {
+        java.io.File file = java.io.File.createTempFile("game", ".journal");
+        MoveJournal journal = new MoveJournal(file, 1, false, 2);
+        model.setJournal(journal);
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        model.skip();
+        model.skip(); // Checkpoints after every two turns
+        model.skip();
+        assertTrue("The skip should be undone", model.undo());
+        journal.close();
+
+        ScrabbleModel replayed = MoveJournal.replay(file);
+        assertEquals("The board should be the same", model.getBoard(), replayed.getBoard());
+        assertEquals("The turn should be the same", model.getCurrentPlayer().getName(), replayed.getCurrentPlayer().getName());
+        assertEquals("The scoreless turns should be the same", model.getScorelessTurns(), replayed.getScorelessTurns());
+        assertEquals("The score should be the same", model.getPlayers().get(0).getScore(), replayed.getPlayers().get(0).getScore());
+        assertArrayEquals("The bag should be in the same order", model.getBag().getDrawOrder(), replayed.getBag().getDrawOrder());
+
+        java.io.File history = MoveJournal.historyFile(file);
+        assertTrue("Checkpoints should move the earlier turns to the history", file.length() < history.length());
+        ScrabbleModel first = MoveJournal.replay(file, 1);
+        assertFalse("The first turn should be the move", first.getBoard().isEmpty(7, 7));
+        assertEquals("The first turn should not be a skip", 0, first.getScorelessTurns());
+        assertEquals("The undone turn should still be in the history", 3, MoveJournal.replay(file, 4).getScorelessTurns());
+
+        long length = file.length();
+        try (java.io.FileOutputStream out = new java.io.FileOutputStream(file, true)) {
+            out.write(new byte[]{MoveJournal.MOVE, 0, 0, 0, 9, 7, 7}); // A move torn by a crash
+        }
+        assertTrue("A torn record should not stop replay", MoveJournal.canReplay(file));
+        assertEquals("The torn record should be ignored", model.getBoard(), MoveJournal.replay(file).getBoard());
+        new MoveJournal(file).close();
+        assertEquals("Reopening should cut off the torn record", length, file.length());
+        file.delete();
+        history.delete();
+    }
+
+    /**
+     * Tests that a save written in the background replaces the old one whole and reports back.
+     */
+    @org.junit.Test
+    public void testSaveStateAsync_Atomic() throws Exception {
+        java.io.File file = java.io.File.createTempFile("save", ".bin");
+        model.saveState(file.getPath());
+        long before = file.length();
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+
+        java.util.concurrent.CountDownLatch saved = new java.util.concurrent.CountDownLatch(1);
+        boolean[] onEventThread = new boolean[1];
+        java.io.IOException[] saveError = new java.io.IOException[1];
+        model.saveStateAsync(file.getPath(), error -> {
+            saveError[0] = error; // Checked on this thread, where a failed assertion fails the test
+            onEventThread[0] = javax.swing.SwingUtilities.isEventDispatchThread();
+            saved.countDown();
+        });
+        model.skip(); // The game goes on while the save is written
+        assertTrue("The save should finish", saved.await(5, java.util.concurrent.TimeUnit.SECONDS));
+        assertNull("The save should succeed", saveError[0]);
+        assertTrue("The callback should run on the event thread", onEventThread[0]);
+
+        ScrabbleModel loaded = ScrabbleModel.readSave(file);
+        assertEquals("The save should hold the game as it was when saved", model.getPlayers().get(0).getScore(), loaded.getPlayers().get(0).getScore());
+        assertEquals("The save should be taken before the skip", 0, loaded.getScorelessTurns());
+        assertTrue("The new save should have replaced the old one", file.length() > before);
+        java.io.File[] leftovers = file.getParentFile().listFiles((dir, name) -> name.startsWith(file.getName()) && name.endsWith(".tmp"));
+        assertEquals("No temporary file should be left", 0, leftovers.length);
+        file.delete();
+    }
+
+    /**
+     * Tests that the save catalog describes each save, keeps the latest record for a name and rebuilds itself.
+     */
+    @org.junit.Test
+    public void testSaveCatalog_Index() throws Exception {
+        java.io.File directory = java.nio.file.Files.createTempDirectory("saves").toFile();
+        SaveCatalog catalog = new SaveCatalog(directory);
+        assertTrue("A new catalog should be empty", catalog.getEntries().isEmpty());
+
+        model.saveState(new java.io.File(directory, "first").getPath());
+        catalog.put(SaveCatalog.Entry.of("first", model));
+        setPlayerTiles('h', 'e', 'l', 'l', 'o');
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        model.skip();
+        model.saveState(new java.io.File(directory, "second").getPath());
+        catalog.put(SaveCatalog.Entry.of("second", model));
+        catalog.put(SaveCatalog.Entry.of("first", model)); // Saved again over the first
+        SaveWriter.awaitWrites();
+
+        List<SaveCatalog.Entry> entries = new SaveCatalog(directory).getEntries();
+        assertEquals("The catalog should hold one entry per save", 2, entries.size());
+        assertEquals("The latest save should come first", "first", entries.get(0).getName());
+        assertEquals("The entry should count the turns", 2, entries.get(0).getTurnCount());
+        assertEquals("The entry should hold the scores", model.getPlayers().get(0).getScore(), entries.get(0).getScore(0));
+        assertEquals("The entry should hold the players", "Player2", entries.get(0).getPlayerName(1));
+
+        assertTrue("The index should be deleted", new java.io.File(directory, SaveCatalog.FILE_NAME).delete());
+        java.nio.file.Files.write(new java.io.File(directory, "old").toPath(), new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5});
+        SaveCatalog rebuilt = new SaveCatalog(directory);
+        assertEquals("A rebuilt catalog should find every save", 3, rebuilt.getEntries().size());
+        assertFalse("A save that cannot be read should still be listed", rebuilt.get("old").isReadable());
+        SaveWriter.awaitWrites();
+        assertFalse("An unreadable save should stay listed", new SaveCatalog(directory).get("old").isReadable());
+        assertEquals("A rebuilt entry should be read from the save", 2, rebuilt.get("second").getTurnCount());
+        assertEquals("A rebuilt entry should be read from the save", model.getBoard().getLayoutId(), rebuilt.get("second").getLayoutId());
+        for (java.io.File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * Tests that a seeded bag draws the same tiles every time, that its copies and returned tiles
+     * replay the same draws, and that its counts follow every draw.
+     */
+    @org.junit.Test
+    public void testBag_SeededCounts() {
+        Bag bag = new Bag(42L);
+        Bag copy = new Bag(bag);
+        StringBuilder drawn = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            drawn.append(bag.drawTile().getTileChar());
+        }
+        StringBuilder again = new StringBuilder();
+        Bag seeded = new Bag(42L);
+        for (int i = 0; i < 10; i++) {
+            again.append(seeded.drawTile().getTileChar());
+        }
+        assertEquals("A seed should fix the draws", drawn.toString(), again.toString());
+        assertEquals("A copy should not be changed by drawing from the bag", 100, copy.getTileCount());
+        assertEquals("A copy should draw the same tiles", drawn.charAt(0), copy.drawTile().getTileChar());
+
+        int total = 0;
+        for (int count : bag.getLetterCounts()) {
+            total += count;
+        }
+        assertEquals("The counts should add up to the tiles left", bag.getTileCount(), total);
+        for (int i = 9; i >= 0; i--) {
+            bag.returnTile(new Tile(drawn.charAt(i)));
+        }
+        assertEquals("Returning every tile should fill the bag", 100, bag.getTileCount());
+        assertEquals("Returned tiles should be drawn again in the same order", drawn.charAt(0), bag.drawTile().getTileChar());
+
+        assertTrue("The bag should hold the letters of a word", new Bag(1L).ItContains("zoo"));
+        assertFalse("The bag should not hold more of a letter than it has", new Bag(1L).ItContains("zz"));
+        byte[] order = new Bag(42L).getDrawOrder();
+        for (int i = 0; i < 10; i++) {
+            char letter = order[order.length - 1 - i] == TileSet.BLANK ? ' ' : (char) ('a' + order[order.length - 1 - i]);
+            assertEquals("The draw order should list the tiles as they are drawn", drawn.charAt(i), letter);
+        }
+    }
+
+    /**
+     * Tests that a player's rack keeps its letter counts in step with its tiles and checks words against them,
+     * with blanks standing in for missing letters.
+     */
+    @org.junit.Test
+    public void testRack_CountsAndCanMake() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o', ' ');
+        Player player = model.getCurrentPlayer();
+        Rack rack = player.getRack();
+        assertEquals("The rack should count both l tiles", 2, player.numInHand('l'));
+        assertEquals("The rack should count the blank", 1, player.numInHand(' '));
+        assertTrue("The rack should make a word from its letters", rack.canMake("hello"));
+        assertTrue("A blank should stand in for a missing letter", rack.canMake("hellos"));
+        assertFalse("One blank should not stand in for two missing letters", rack.canMake("yellow"));
+        assertFalse("The rack should not make a word longer than it", rack.canMake("hellos  "));
+        assertTrue("A blank should be played as a blank", rack.canMake("hell "));
+
+        player.getHand().get(5).setTileChar('w'); // A blank keeps being counted as a blank
+        assertNotNull("The tile should be taken from the hand", player.popTile(new Tile('l')));
+        player.getHand().set(0, new Tile('z'));
+        assertEquals("Removing a tile should update the counts", 1, player.numInHand('l'));
+        assertEquals("Replacing a tile should update the counts", 0, player.numInHand('h'));
+        assertEquals("Replacing a tile should update the counts", 1, player.numInHand('z'));
+        assertEquals("A blank given a letter should still be counted as a blank", 1, rack.count(TileSet.BLANK));
+        int[] needed = new int[TileSet.BLANK + 1];
+        needed['z' - 'a'] = 1;
+        needed['w' - 'a'] = 1;
+        assertTrue("The rack should supply counted letters with a blank", rack.canMake(needed));
+        for (int index : new int[]{-1, 9}) {
+            try {
+                rack.set(index, new Tile('q'));
+                fail("A tile should not be set past the end of the rack");
+            } catch (IndexOutOfBoundsException e) {
+                // Expected
+            }
+            try {
+                rack.add(index, new Tile('q'));
+                fail("A tile should not be added past the end of the rack");
+            } catch (IndexOutOfBoundsException e) {
+                // Expected
+            }
+        }
+        assertEquals("A failed change should leave the counts alone", 0, rack.count('q' - 'a'));
+        assertArrayEquals("The counts should match the tiles", MoveGenerator.countTiles(new ArrayList<>(rack)), rack.getCounts());
+        player.getHand().clear();
+        assertEquals("Clearing the hand should clear the counts", 0, player.numInHand('z'));
+        assertEquals("An empty hand has no blank", -1, player.indexOfBlank());
+    }
+
+    /**
+     * Tests that the unseen tile tracker follows moves and undo, and samples opponent racks from the unseen tiles.
+     */
+    @org.junit.Test
+    public void testUnseenTracker_Updates() {
+        setPlayerTiles('h', 'e', 'l', 'l', 'o', ' ');
+        Player mover = model.getPlayers().get(0);
+        Player opponent = model.getPlayers().get(1);
+        UnseenTracker tracker = model.getUnseenTracker();
+        int[] before = model.getUnseenCounts(opponent);
+        int totalBefore = tracker.getUnseenTotal(opponent);
+
+        assertTrue("The move should be successful", model.makeMove(7, 7, 'R', makeWord("hello")));
+        assertEquals("The opponent should see the played tiles", totalBefore - 5, tracker.getUnseenTotal(opponent));
+        assertEquals("The opponent should see both played l tiles", before['l' - 'a'] - 2, tracker.getUnseen(opponent, 'l' - 'a'));
+        int[] naive = model.getBag().getLetterCounts();
+        for (int i = 0; i < naive.length; i++) {
+            naive[i] += mover.getRack().count(i);
+        }
+        assertArrayEquals("The tracker should match the bag and the other racks", naive, model.getUnseenCounts(opponent));
+
+        assertTrue("The move should be undone", model.undo());
+        assertArrayEquals("Undo should hide the tiles again", before, model.getUnseenCounts(opponent));
+
+        int[][] racks = tracker.sampleRacks(opponent, new java.util.SplittableRandom(7));
+        assertArrayEquals("The viewer's own rack should be their actual rack", opponent.getRack().getCounts(), racks[1]);
+        int sampled = 0;
+        for (int i = 0; i < racks[0].length; i++) {
+            assertTrue("A sampled rack should only hold unseen tiles", racks[0][i] <= before[i]);
+            sampled += racks[0][i];
+        }
+        assertEquals("A sampled rack should be as big as the opponent's", mover.handSize(), sampled);
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Keeps track of the tiles each player cannot see: those in the bag and in the other players' racks.
+ *
+ * The tiles not on the board are all either in the bag or in a rack, so what a player cannot see is those
+ * tiles less the player's own rack. The tracker keeps the count of each letter off the board, which only
+ * changes when tiles are played or an undo takes them back; drawing moves a tile from the bag to a rack,
+ * which both count. With each rack counting its own letters, any player's view is a single subtraction
+ * per letter, and plausible racks for the opponents can be drawn from it without looking at a tile.
+ */
+public class UnseenTracker {
+    private final List<Player> players;
+    private final int[] offBoard = new int[TileSet.BLANK + 1];
+    private int offBoardTotal;
+
+    /**
+     * Constructor for the UnseenTracker class, counting the tiles of a game as it stands.
+     *
+     * @param bag the bag the players draw from.
+     * @param players the players, whose list the tracker reads their racks from.
+     */
+    public UnseenTracker(Bag bag, List<Player> players) {
+        this.players = players;
+        for (int i = 0; i < offBoard.length; i++) {
+            offBoard[i] = bag.getCount(i);
+        }
+        for (Player player : players) {
+            for (int i = 0; i < offBoard.length; i++) {
+                offBoard[i] += player.getRack().count(i);
+            }
+        }
+        for (int count : offBoard) {
+            offBoardTotal += count;
+        }
+    }
+
+    /**
+     * Notes that a tile has been placed on the board.
+     *
+     * @param tile the tile, counted as a blank if it is one.
+     */
+    public void placed(Tile tile) {
+        offBoard[letterOf(tile)]--;
+        offBoardTotal--;
+    }
+
+    /**
+     * Notes that a tile has been taken back off the board.
+     *
+     * @param tile the tile, counted as a blank if it is one.
+     */
+    public void returned(Tile tile) {
+        offBoard[letterOf(tile)]++;
+        offBoardTotal++;
+    }
+
+    private static int letterOf(Tile tile) {
+        return tile.isBlank() ? TileSet.BLANK : Lexicon.letterIndex(tile.getTileChar());
+    }
+
+    /**
+     * Returns how many tiles of a letter a player cannot see.
+     *
+     * @param viewer the player whose view is wanted.
+     * @param letter the letter index from 0 to 25, or TileSet.BLANK.
+     * @return the number of unseen tiles.
+     */
+    public int getUnseen(Player viewer, int letter) {
+        return offBoard[letter] - viewer.getRack().count(letter);
+    }
+
+    /**
+     * Returns how many tiles a player cannot see in all.
+     *
+     * @param viewer the player whose view is wanted.
+     * @return the number of unseen tiles.
+     */
+    public int getUnseenTotal(Player viewer) {
+        return offBoardTotal - viewer.handSize();
+    }
+
+    /**
+     * Counts the tiles a player cannot see.
+     *
+     * @param viewer the player whose view is wanted.
+     * @return a new array of the count of each letter, with blanks counted at index TileSet.BLANK.
+     */
+    public int[] getUnseenCounts(Player viewer) {
+        int[] unseen = new int[offBoard.length];
+        for (int i = 0; i < unseen.length; i++) {
+            unseen[i] = offBoard[i] - viewer.getRack().count(i);
+        }
+        return unseen;
+    }
+
+    /**
+     * Draws plausible racks for a player's opponents: each opponent is given as many tiles as they hold,
+     * chosen at random from the tiles the player cannot see, without drawing any tile twice.
+     *
+     * @param viewer the player whose view the racks are drawn from.
+     * @param random the random generator to use.
+     * @return the tile counts of each player's rack, in turn order; the viewer's row is their actual rack.
+     */
+    public int[][] sampleRacks(Player viewer, SplittableRandom random) {
+        int[] pool = getUnseenCounts(viewer);
+        int[][] racks = new int[players.size()][];
+        for (int p = 0; p < racks.length; p++) {
+            Player player = players.get(p);
+            if (player == viewer) {
+                racks[p] = player.getRack().getCounts();
+            } else {
+                racks[p] = new int[offBoard.length];
+                MonteCarloSimulator.draw(pool, racks[p], player.handSize(), random);
+            }
+        }
+        return racks;
+    }
+}